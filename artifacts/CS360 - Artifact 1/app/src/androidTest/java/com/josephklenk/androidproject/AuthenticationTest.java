@@ -0,0 +1,192 @@
+package com.josephklenk.androidproject;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.josephklenk.androidproject.core.PasswordHasher;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.security.MessageDigest;
+import java.util.Base64;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for DatabaseHelper.authenticate.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AuthenticationTest {
+    private static final String TEST_DB = "WeightTrackerAuthTest.db";
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+    private long userId;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DatabaseHelper(context, TEST_DB);
+        userId = dbHelper.addUser("authtester", "password1");
+        assertNotEquals(-1, userId);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void correctPasswordResolvesUserId() {
+        DatabaseHelper.AuthResult result = dbHelper.authenticate("authtester", "password1");
+        assertEquals(DatabaseHelper.AuthResult.SUCCESS, result.getStatus());
+        assertTrue(result.isAuthenticated());
+        assertEquals(userId, result.getUserId());
+    }
+
+    @Test
+    public void wrongPasswordIsRejected() {
+        DatabaseHelper.AuthResult result = dbHelper.authenticate("authtester", "password2");
+        assertEquals(DatabaseHelper.AuthResult.BAD_PASSWORD, result.getStatus());
+        assertFalse(result.isAuthenticated());
+        assertEquals(-1, result.getUserId());
+    }
+
+    @Test
+    public void unknownUserIsReported() {
+        DatabaseHelper.AuthResult result = dbHelper.authenticate("nobody", "password1");
+        assertEquals(DatabaseHelper.AuthResult.NO_SUCH_USER, result.getStatus());
+        assertFalse(result.isAuthenticated());
+    }
+
+    @Test
+    public void unsaltedRecordIsFlaggedAsLegacy() {
+        dbHelper.getWritableDatabase().execSQL(
+                "INSERT INTO users (username, password, salt) VALUES ('olduser', 'plaintext1', '')");
+
+        DatabaseHelper.AuthResult result = dbHelper.authenticate("olduser", "plaintext1");
+        assertEquals(DatabaseHelper.AuthResult.LEGACY_HASH, result.getStatus());
+        assertTrue(result.isAuthenticated());
+        assertEquals(dbHelper.getUserId("olduser"), result.getUserId());
+    }
+
+    @Test
+    public void newAccountsUseCalibratedPbkdf2() {
+        int iterations = storedIterations("authtester");
+        assertTrue("iterations " + iterations, iterations >= PasswordHasher.MIN_ITERATIONS);
+        assertTrue("iterations " + iterations, iterations <= PasswordHasher.MAX_ITERATIONS);
+    }
+
+    @Test
+    public void legacyRecordIsUpgradedOnSuccessfulLogin() {
+        dbHelper.getWritableDatabase().execSQL(
+                "INSERT INTO users (username, password, salt) VALUES ('olduser', 'plaintext1', '')");
+        assertEquals(0, storedIterations("olduser"));
+
+        // A failed attempt must not touch the record
+        assertEquals(DatabaseHelper.AuthResult.BAD_PASSWORD, dbHelper.authenticate("olduser", "wrong1").getStatus());
+        assertEquals(0, storedIterations("olduser"));
+
+        assertEquals(DatabaseHelper.AuthResult.LEGACY_HASH, dbHelper.authenticate("olduser", "plaintext1").getStatus());
+        assertEquals(storedIterations("authtester"), storedIterations("olduser"));
+        assertEquals(DatabaseHelper.AuthResult.SUCCESS, dbHelper.authenticate("olduser", "plaintext1").getStatus());
+    }
+
+    @Test
+    public void saltedLegacyHashIsUpgradedOnSuccessfulLogin() throws Exception {
+        String salt = "AAAAAAAAAAAAAAAAAAAAAA==";
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        sha256.update(Base64.getDecoder().decode(salt));
+        String legacyHash = Base64.getEncoder().encodeToString(sha256.digest("password1".getBytes()));
+        dbHelper.getWritableDatabase().execSQL(
+                "INSERT INTO users (username, password, salt, iterations) VALUES (?, ?, ?, ?)",
+                new Object[]{"shauser", legacyHash, salt, PasswordHasher.LEGACY_ITERATIONS});
+
+        assertEquals(DatabaseHelper.AuthResult.LEGACY_HASH, dbHelper.authenticate("shauser", "password1").getStatus());
+        assertEquals(storedIterations("authtester"), storedIterations("shauser"));
+        assertEquals(DatabaseHelper.AuthResult.SUCCESS, dbHelper.authenticate("shauser", "password1").getStatus());
+    }
+
+    @Test
+    public void malformedStoredHashIsAnError() {
+        dbHelper.getWritableDatabase().execSQL(
+                "INSERT INTO users (username, password, salt, iterations) VALUES (?, ?, ?, ?)",
+                new Object[]{"badhash", "!not base64!", "AAAAAAAAAAAAAAAAAAAAAA==", PasswordHasher.MIN_ITERATIONS});
+
+        DatabaseHelper.AuthResult result = dbHelper.authenticate("badhash", "password1");
+        assertEquals(DatabaseHelper.AuthResult.ERROR, result.getStatus());
+        assertFalse(result.isAuthenticated());
+    }
+
+    @Test
+    public void weakWorkFactorIsRaisedOnSuccessfulLogin() {
+        String salt = "AAAAAAAAAAAAAAAAAAAAAA==";
+        String weakHash = PasswordHasher.hash("password1", salt, PasswordHasher.MIN_ITERATIONS / 10);
+        dbHelper.getWritableDatabase().execSQL(
+                "INSERT INTO users (username, password, salt, iterations) VALUES (?, ?, ?, ?)",
+                new Object[]{"weakuser", weakHash, salt, PasswordHasher.MIN_ITERATIONS / 10});
+
+        assertEquals(DatabaseHelper.AuthResult.SUCCESS, dbHelper.authenticate("weakuser", "password1").getStatus());
+        assertEquals(storedIterations("authtester"), storedIterations("weakuser"));
+        assertEquals(DatabaseHelper.AuthResult.SUCCESS, dbHelper.authenticate("weakuser", "password1").getStatus());
+    }
+
+    @Test
+    public void sessionTokenResolvesUser() {
+        String token = dbHelper.createSession(userId);
+        assertNotNull(token);
+        assertEquals(userId, dbHelper.getSessionUserId(token));
+    }
+
+    @Test
+    public void unknownSessionTokenIsRejected() {
+        dbHelper.createSession(userId);
+        assertEquals(-1, dbHelper.getSessionUserId("not-a-real-token"));
+        assertEquals(-1, dbHelper.getSessionUserId(""));
+    }
+
+    @Test
+    public void expiredSessionIsRejected() {
+        String token = dbHelper.createSession(userId);
+        dbHelper.getWritableDatabase().execSQL("UPDATE sessions SET expires_at = ?",
+                new Object[]{System.currentTimeMillis() - 1});
+        assertEquals(-1, dbHelper.getSessionUserId(token));
+    }
+
+    @Test
+    public void revokedSessionNoLongerResolves() {
+        String token = dbHelper.createSession(userId);
+        String otherDevice = dbHelper.createSession(userId);
+
+        assertTrue(dbHelper.revokeSession(token));
+        assertEquals(-1, dbHelper.getSessionUserId(token));
+        // Only the signed-out token is revoked
+        assertEquals(userId, dbHelper.getSessionUserId(otherDevice));
+    }
+
+    @Test
+    public void sessionTokenIsNotStoredInPlainText() {
+        String token = dbHelper.createSession(userId);
+        try (Cursor cursor = dbHelper.getReadableDatabase().rawQuery(
+                "SELECT COUNT(*) FROM sessions WHERE token_hash = ?", new String[]{token})) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(0, cursor.getInt(0));
+        }
+    }
+
+    private int storedIterations(String username) {
+        try (Cursor cursor = dbHelper.getReadableDatabase().rawQuery(
+                "SELECT iterations FROM users WHERE username = ?", new String[]{username})) {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getInt(0);
+        }
+    }
+}
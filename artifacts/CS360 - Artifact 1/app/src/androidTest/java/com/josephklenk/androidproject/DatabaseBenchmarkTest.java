@@ -0,0 +1,394 @@
+package com.josephklenk.androidproject;
+
+import android.app.Activity;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+import android.widget.EditText;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.runner.lifecycle.ActivityLifecycleMonitorRegistry;
+import androidx.test.runner.lifecycle.Stage;
+
+import com.josephklenk.androidproject.core.PasswordHasher;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Timing comparisons for DatabaseHelper hot paths. Results are written to
+ * logcat under the DatabaseBenchmark tag; run on a device, not an emulator,
+ * for representative numbers.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseBenchmarkTest {
+    private static final String TAG = "DatabaseBenchmark";
+    private static final String TEST_DB = "WeightTrackerBenchmark.db";
+    private static final int[] ROW_COUNTS = {1_000, 10_000, 100_000};
+    private static final int DASHBOARD_ROWS = 1_000;
+    private static final int DASHBOARD_LAUNCHES = 7;
+    private static final int DASHBOARD_LOADS = 500;
+    private static final long FIRST_FRAME_TIMEOUT_MS = 10_000;
+    private static final int STATEMENT_ITERATIONS = 10_000;
+    private static final int[] PBKDF2_ITERATIONS = {10_000, 50_000, 100_000, 250_000, 500_000};
+    private static final int PBKDF2_ROUNDS = 5;
+    private static final int BIND_ROWS = 10_000;
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+    private long userId;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DatabaseHelper(context, TEST_DB);
+        userId = dbHelper.addUser("benchmark", "password1");
+        assertNotEquals(-1, userId);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void rowAtATimeVersusBulkInsert() {
+        for (int rows : ROW_COUNTS) {
+            List<DatabaseHelper.WeightEntry> entries = generateEntries(rows);
+
+            long start = System.nanoTime();
+            for (DatabaseHelper.WeightEntry entry : entries) {
+                dbHelper.addWeight(userId, entry.getWeight(), entry.getEpochDay());
+            }
+            long singleMs = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            DatabaseHelper.BulkInsertResult result = dbHelper.addWeights(userId, entries);
+            long bulkMs = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(rows, result.getInsertedCount());
+            Log.i(TAG, String.format("insert %d rows: addWeight %d ms, addWeights %d ms",
+                    rows, singleMs, bulkMs));
+        }
+    }
+
+    /**
+     * Per-call cost of the cached compiled statements against the
+     * query/insert calls they replaced. Inserts run inside one transaction
+     * so the commit does not swamp the statement overhead being measured.
+     */
+    @Test
+    public void cachedStatementVersusQuery() {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        String[] args = new String[]{"benchmark"};
+
+        // Warm both paths so first-use compilation is not counted
+        dbHelper.getUserId("benchmark");
+        db.query("users", new String[]{"id"}, "username=?", args, null, null, null).close();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < STATEMENT_ITERATIONS; i++) {
+            Cursor cursor = db.query("users", new String[]{"id"}, "username=?", args, null, null, null);
+            try {
+                assertTrue(cursor.moveToFirst());
+                assertEquals(userId, cursor.getLong(0));
+            } finally {
+                cursor.close();
+            }
+        }
+        long queryNs = (System.nanoTime() - start) / STATEMENT_ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < STATEMENT_ITERATIONS; i++) {
+            assertEquals(userId, dbHelper.getUserId("benchmark"));
+        }
+        long cachedNs = (System.nanoTime() - start) / STATEMENT_ITERATIONS;
+
+        Log.i(TAG, String.format("user id lookup: query %d ns/call, cached statement %d ns/call",
+                queryNs, cachedNs));
+
+        long day = LocalDate.of(2020, 1, 1).toEpochDay();
+        db.beginTransaction();
+        try {
+            start = System.nanoTime();
+            for (int i = 0; i < STATEMENT_ITERATIONS; i++) {
+                ContentValues values = new ContentValues();
+                values.put("user_id", userId);
+                values.put("weight", 1800); // Tenths of a pound
+                values.put("epoch_day", day + i);
+                assertNotEquals(-1, db.insert("weights", null, values));
+            }
+            queryNs = (System.nanoTime() - start) / STATEMENT_ITERATIONS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < STATEMENT_ITERATIONS; i++) {
+                assertNotEquals(-1, dbHelper.addWeight(userId, 180.0, day + i));
+            }
+            cachedNs = (System.nanoTime() - start) / STATEMENT_ITERATIONS;
+        } finally {
+            db.endTransaction();
+        }
+
+        Log.i(TAG, String.format("weight insert: ContentValues %d ns/call, cached statement %d ns/call",
+                queryNs, cachedNs));
+    }
+
+    /**
+     * Cost of one password derivation at several work factors, and what
+     * calibration picks on this device for the default latency budget.
+     */
+    @Test
+    public void passwordDerivationCost() {
+        byte[] salt = new byte[16];
+        PasswordHasher.derive("warmup".toCharArray(), salt, PasswordHasher.MIN_ITERATIONS);
+
+        for (int iterations : PBKDF2_ITERATIONS) {
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < PBKDF2_ROUNDS; round++) {
+                long start = System.nanoTime();
+                PasswordHasher.derive("password1".toCharArray(), salt, iterations);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            Log.i(TAG, String.format("pbkdf2 %d iterations: %.1f ms", iterations, best / 1e6));
+        }
+
+        int calibrated = PasswordHasher.calibrate(PasswordHasher.DEFAULT_TARGET_MILLIS);
+        long start = System.nanoTime();
+        PasswordHasher.derive("password1".toCharArray(), salt, calibrated);
+        Log.i(TAG, String.format("pbkdf2 calibrated for %d ms: %d iterations, measured %.1f ms",
+                PasswordHasher.DEFAULT_TARGET_MILLIS, calibrated, (System.nanoTime() - start) / 1e6));
+    }
+
+    /**
+     * Time from launching the dashboard until the first history rows are laid
+     * out. dashboardSeparateQueriesVersusSnapshot measures the data-loading
+     * part of this against the three startup queries it replaced.
+     */
+    @Test
+    public void dashboardTimeToFirstFrame() throws Exception {
+        // The activity reads the shared database, so seed a throwaway user there
+        DatabaseHelper shared = DatabaseHelper.getInstance(context);
+        long dashboardUser = shared.addUser("dashbench" + System.nanoTime(), "password1");
+        assertNotEquals(-1, dashboardUser);
+        assertEquals(DASHBOARD_ROWS, shared.addWeights(dashboardUser, generateEntries(DASHBOARD_ROWS)).getInsertedCount());
+        shared.setGoalWeight(dashboardUser, 160.0);
+
+        Intent intent = new Intent(context, WeightTrackerActivity.class);
+        intent.putExtra("USER_ID", dashboardUser);
+
+        long[] launchMs = new long[DASHBOARD_LAUNCHES];
+        for (int i = 0; i < DASHBOARD_LAUNCHES; i++) {
+            long start = System.nanoTime();
+            try (ActivityScenario<WeightTrackerActivity> scenario = ActivityScenario.launch(intent)) {
+                AtomicBoolean drawn = new AtomicBoolean();
+                long deadline = System.currentTimeMillis() + FIRST_FRAME_TIMEOUT_MS;
+                while (!drawn.get() && System.currentTimeMillis() < deadline) {
+                    scenario.onActivity(activity -> {
+                        RecyclerView recyclerView = activity.findViewById(R.id.weightHistoryRecyclerView);
+                        drawn.set(recyclerView.getChildCount() > 0);
+                    });
+                }
+                assertTrue("Dashboard never rendered", drawn.get());
+                launchMs[i] = (System.nanoTime() - start) / 1_000_000;
+            }
+        }
+
+        Arrays.sort(launchMs);
+        Log.i(TAG, String.format("dashboard first frame with %d rows: median %d ms, min %d ms, max %d ms",
+                DASHBOARD_ROWS, launchMs[DASHBOARD_LAUNCHES / 2], launchMs[0], launchMs[DASHBOARD_LAUNCHES - 1]));
+    }
+
+    /**
+     * The dashboard's data load as it was before getDashboard (first history
+     * page, latest weight and goal as three reads) against the single
+     * snapshot statement, both with the page cursor filled as the adapter
+     * would fill it and with the summary cache warm, as on a repeat visit
+     */
+    @Test
+    public void dashboardSeparateQueriesVersusSnapshot() {
+        assertEquals(DASHBOARD_ROWS, dbHelper.addWeights(userId, generateEntries(DASHBOARD_ROWS)).getInsertedCount());
+        dbHelper.setGoalWeight(userId, 160.0);
+
+        // Warm statement compilation and the cache for both paths
+        dbHelper.getWeightsPage(userId, DatabaseHelper.FIRST_PAGE, DatabaseHelper.DEFAULT_PAGE_SIZE).getCursor().close();
+        dbHelper.getDashboard(userId).getHistory().getCursor().close();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < DASHBOARD_LOADS; i++) {
+            DatabaseHelper.WeightPage page = dbHelper.getWeightsPage(userId, DatabaseHelper.FIRST_PAGE,
+                    DatabaseHelper.DEFAULT_PAGE_SIZE);
+            assertEquals(DatabaseHelper.DEFAULT_PAGE_SIZE, page.getCursor().getCount());
+            page.getCursor().close();
+            assertTrue(dbHelper.getLatestWeight(userId) > 0);
+            assertEquals(160.0, dbHelper.getGoalWeight(userId), 0.001);
+        }
+        double separateUs = (System.nanoTime() - start) / 1e3 / DASHBOARD_LOADS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < DASHBOARD_LOADS; i++) {
+            DatabaseHelper.Dashboard dashboard = dbHelper.getDashboard(userId);
+            assertEquals(DatabaseHelper.DEFAULT_PAGE_SIZE, dashboard.getHistory().getCursor().getCount());
+            dashboard.getHistory().getCursor().close();
+        }
+        double snapshotUs = (System.nanoTime() - start) / 1e3 / DASHBOARD_LOADS;
+
+        Log.i(TAG, String.format("dashboard load with %d rows: separate queries %.1f us, snapshot %.1f us",
+                DASHBOARD_ROWS, separateUs, snapshotUs));
+    }
+
+    /**
+     * Binds every row of a 10k-entry history into one view holder, the way
+     * scrolling rebinds recycled views, and reports the cost per bind.
+     */
+    @Test
+    public void adapterBindThroughput() throws Exception {
+        long[] ids = new long[BIND_ROWS];
+        double[] weights = new double[BIND_ROWS];
+        long[] epochDays = new long[BIND_ROWS];
+        long startDay = LocalDate.of(2000, 1, 1).toEpochDay();
+        for (int i = 0; i < BIND_ROWS; i++) {
+            ids[i] = BIND_ROWS - i;
+            weights[i] = 150.0 + (i % 200) / 10.0;
+            epochDays[i] = startDay + BIND_ROWS - i;
+        }
+
+        long buildStart = System.nanoTime();
+        WeightAdapter.Rows rows = WeightAdapter.Rows.of(ids, weights, epochDays);
+        long buildMs = (System.nanoTime() - buildStart) / 1_000_000;
+
+        Intent intent = new Intent(context, WeightTrackerActivity.class);
+        intent.putExtra("USER_ID", userId);
+        try (ActivityScenario<WeightTrackerActivity> scenario = ActivityScenario.launch(intent)) {
+            AtomicReference<WeightAdapter> adapterRef = new AtomicReference<>();
+            CountDownLatch committed = new CountDownLatch(1);
+            scenario.onActivity(activity -> {
+                adapterRef.set(new WeightAdapter(AsyncWeightRepository.getInstance(activity), activity));
+                adapterRef.get().submitRows(rows, committed::countDown);
+            });
+            assertTrue(committed.await(10, TimeUnit.SECONDS));
+            WeightAdapter adapter = adapterRef.get();
+            assertEquals(BIND_ROWS, adapter.getItemCount());
+
+            scenario.onActivity(activity -> {
+                RecyclerView parent = activity.findViewById(R.id.weightHistoryRecyclerView);
+                WeightAdapter.WeightViewHolder holder = adapter.onCreateViewHolder(parent, 0);
+
+                // Warm-up pass so JIT compilation is not counted
+                for (int i = 0; i < BIND_ROWS; i++) {
+                    adapter.onBindViewHolder(holder, i);
+                }
+                long start = System.nanoTime();
+                for (int i = 0; i < BIND_ROWS; i++) {
+                    adapter.onBindViewHolder(holder, i);
+                }
+                long bindNs = (System.nanoTime() - start) / BIND_ROWS;
+                Log.i(TAG, String.format("adapter bind %d rows: %d ns/bind, row model built in %d ms",
+                        BIND_ROWS, bindNs, buildMs));
+            });
+        }
+    }
+
+    /**
+     * Launcher-to-dashboard time for a user who has to type a password
+     * versus one with a stored session. The process stays warm between
+     * launches, so this isolates the login screen and hashing cost rather
+     * than process start.
+     */
+    @Test
+    public void launchToDashboardWithAndWithoutSession() throws Exception {
+        DatabaseHelper shared = DatabaseHelper.getInstance(context);
+        String username = "sessionbench" + System.nanoTime();
+        long sessionUser = shared.addUser(username, "password1");
+        assertNotEquals(-1, sessionUser);
+        shared.addWeights(sessionUser, generateEntries(DASHBOARD_ROWS));
+        SharedPreferences prefs = context.getSharedPreferences(MainActivity.PREFS_NAME, Context.MODE_PRIVATE);
+
+        // No session: the login form appears and the password is verified
+        prefs.edit().remove(MainActivity.PREF_SESSION_TOKEN).commit();
+        long start = System.nanoTime();
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            scenario.onActivity(activity -> {
+                ((EditText) activity.findViewById(R.id.usernameEditText)).setText(username);
+                ((EditText) activity.findViewById(R.id.passwordEditText)).setText("password1");
+                activity.findViewById(R.id.loginButton).performClick();
+            });
+            awaitDashboardFrame();
+        }
+        long loginMs = (System.nanoTime() - start) / 1_000_000;
+
+        // The login above stored a session, so this launch skips the form
+        assertNotNull(prefs.getString(MainActivity.PREF_SESSION_TOKEN, null));
+        start = System.nanoTime();
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            awaitDashboardFrame();
+        }
+        long sessionMs = (System.nanoTime() - start) / 1_000_000;
+
+        prefs.edit().remove(MainActivity.PREF_SESSION_TOKEN).commit();
+        Log.i(TAG, String.format("launch to dashboard frame: login %d ms, stored session %d ms",
+                loginMs, sessionMs));
+    }
+
+    /**
+     * Waits until a resumed WeightTrackerActivity has laid out history rows,
+     * then finishes it
+     */
+    private void awaitDashboardFrame() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + FIRST_FRAME_TIMEOUT_MS;
+        WeightTrackerActivity[] drawn = new WeightTrackerActivity[1];
+        while (drawn[0] == null && System.currentTimeMillis() < deadline) {
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+                Collection<Activity> resumed =
+                        ActivityLifecycleMonitorRegistry.getInstance().getActivitiesInStage(Stage.RESUMED);
+                for (Activity activity : resumed) {
+                    if (activity instanceof WeightTrackerActivity) {
+                        RecyclerView recyclerView = activity.findViewById(R.id.weightHistoryRecyclerView);
+                        if (recyclerView.getChildCount() > 0) {
+                            drawn[0] = (WeightTrackerActivity) activity;
+                        }
+                    }
+                }
+            });
+            if (drawn[0] == null) {
+                Thread.sleep(5);
+            }
+        }
+        assertNotNull("Dashboard never rendered", drawn[0]);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(drawn[0]::finish);
+    }
+
+    /**
+     * Generates one reading per day starting 2020-01-01
+     */
+    private List<DatabaseHelper.WeightEntry> generateEntries(int count) {
+        List<DatabaseHelper.WeightEntry> entries = new ArrayList<>(count);
+        long startDay = LocalDate.of(2020, 1, 1).toEpochDay();
+        for (int i = 0; i < count; i++) {
+            entries.add(new DatabaseHelper.WeightEntry(150.0 + (i % 200) / 10.0, startDay + i));
+        }
+        return entries;
+    }
+}
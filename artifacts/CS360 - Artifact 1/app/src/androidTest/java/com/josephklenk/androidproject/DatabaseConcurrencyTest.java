@@ -0,0 +1,131 @@
+package com.josephklenk.androidproject;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for WAL-mode concurrency in DatabaseHelper.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseConcurrencyTest {
+    private static final String TEST_DB = "WeightTrackerConcurrencyTest.db";
+    private static final int BULK_ROWS = 2000;
+    private static final long START_DAY = LocalDate.of(2025, 1, 1).toEpochDay();
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+    private long userId;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DatabaseHelper(context, TEST_DB);
+        userId = dbHelper.addUser("waltester", "password1");
+        assertNotEquals(-1, userId);
+        for (int i = 0; i < 10; i++) {
+            dbHelper.addWeight(userId, 180.0 + i, START_DAY + i);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void walIsEnabled() {
+        assertTrue(dbHelper.getWritableDatabase().isWriteAheadLoggingEnabled());
+    }
+
+    @Test
+    public void readersSeeCommittedSnapshotWhileBulkWriteRuns() throws Exception {
+        CountDownLatch rowsWritten = new CountDownLatch(1);
+        CountDownLatch readerDone = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        Future<?> writer = executor.submit(() -> {
+            SQLiteDatabase db = dbHelper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (int i = 0; i < BULK_ROWS; i++) {
+                    dbHelper.addWeight(userId, 250.0, START_DAY + 30);
+                }
+                rowsWritten.countDown();
+                // Hold the write transaction open until the reader has finished
+                readerDone.await(10, TimeUnit.SECONDS);
+                db.setTransactionSuccessful();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                db.endTransaction();
+            }
+        });
+
+        assertTrue(rowsWritten.await(30, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        double latest = dbHelper.getLatestWeight(userId);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        readerDone.countDown();
+
+        // Uncommitted rows are invisible and the read did not wait for the writer
+        assertEquals(189.0, latest, 0.001);
+        assertTrue("Reader blocked for " + elapsedMs + " ms", elapsedMs < 1000);
+
+        writer.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertEquals(250.0, dbHelper.getLatestWeight(userId), 0.001);
+    }
+
+    @Test
+    public void writerWaitingForTheConnectionDoesNotBlockTheTransactionOwner() throws Exception {
+        CountDownLatch transactionOpen = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        Future<?> owner = executor.submit(() -> {
+            SQLiteDatabase db = dbHelper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                transactionOpen.countDown();
+                // Let the other writer reach the insert and queue for the connection
+                Thread.sleep(500);
+                assertNotEquals(-1, dbHelper.addWeight(userId, 200.0, START_DAY + 40));
+                assertNotEquals(-1, dbHelper.setGoalWeight(userId, 170.0));
+                db.setTransactionSuccessful();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                db.endTransaction();
+            }
+        });
+        Future<Long> waiter = executor.submit(() -> {
+            transactionOpen.await(10, TimeUnit.SECONDS);
+            return dbHelper.addWeight(userId, 210.0, START_DAY + 41);
+        });
+
+        // Both finish; with a shared statement lock the two threads waited on each other forever
+        owner.get(10, TimeUnit.SECONDS);
+        assertNotEquals(-1L, (long) waiter.get(10, TimeUnit.SECONDS));
+        executor.shutdownNow();
+        assertEquals(12, dbHelper.getUserStats(userId).getEntryCount());
+    }
+}
@@ -0,0 +1,142 @@
+package com.josephklenk.androidproject;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.josephklenk.androidproject.core.WeightSchema;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Guards the query plans of DatabaseHelper hot paths so an index
+ * regression fails the build instead of showing up as slow screens.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseIndexTest {
+    private static final String TEST_DB = "WeightTrackerIndexTest.db";
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DatabaseHelper(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void weightsPageUsesCoveringIndexWithoutSort() {
+        String plan = explain(WeightSchema.SQL_WEIGHTS_PAGE, "1", "9223372036854775807", "50");
+        assertTrue(plan, plan.contains("COVERING INDEX idx_weights_user_id"));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void latestWeightIsPrimaryKeyLookup() {
+        String plan = explain(WeightSchema.SQL_LATEST_WEIGHT, "1");
+        assertTrue(plan, plan.contains("SEARCH user_stats USING INTEGER PRIMARY KEY"));
+    }
+
+    @Test
+    public void userStatsIsPrimaryKeyLookup() {
+        String plan = explain(WeightSchema.SQL_USER_STATS, "1");
+        assertTrue(plan, plan.contains("SEARCH user_stats USING INTEGER PRIMARY KEY"));
+    }
+
+    @Test
+    public void dashboardSummaryUsesOnlyKeyLookups() {
+        String plan = explain(WeightSchema.SQL_DASHBOARD_SUMMARY, "1");
+        assertTrue(plan, plan.contains("SEARCH s USING INTEGER PRIMARY KEY"));
+        assertTrue(plan, plan.contains("COVERING INDEX idx_weights_user_day (user_id=?)"));
+        assertFalse(plan, plan.contains("SCAN weights"));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void dashboardSnapshotSeeksBothIndexes() {
+        String plan = explain(WeightSchema.SQL_DASHBOARD, "1", "50");
+        assertTrue(plan, plan.contains("COVERING INDEX idx_weights_user_day (user_id=?)"));
+        assertTrue(plan, plan.contains("COVERING INDEX idx_weights_user_id (user_id=?)"));
+        // The only sorts left are over the one summary row and the page itself
+        assertFalse(plan, plan.contains("SCAN weights"));
+    }
+
+    @Test
+    public void dateRangeSeeksIndexInsteadOfScanning() {
+        String plan = explain(WeightSchema.SQL_WEIGHTS_BETWEEN, "1", "0", "100");
+        // Both bounds must be part of the index search, not a filter over every user row
+        assertTrue(plan, plan.contains("COVERING INDEX idx_weights_user_day (user_id=? AND epoch_day>? AND epoch_day<?)"));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void dateRangeVisitsOnlyMatchingRows() {
+        long userId = dbHelper.addUser("rangetester", "password1");
+        long otherUserId = dbHelper.addUser("otheruser", "password1");
+        long startDay = LocalDate.of(2024, 1, 1).toEpochDay();
+        for (int i = 0; i < 365; i++) {
+            dbHelper.addWeight(userId, 180.0, startDay + i);
+            dbHelper.addWeight(otherUserId, 200.0, startDay + i);
+        }
+
+        long from = LocalDate.of(2024, 3, 1).toEpochDay();
+        long to = LocalDate.of(2024, 3, 31).toEpochDay();
+        List<Long> days = new ArrayList<>();
+        int visited = dbHelper.forEachWeightBetween(userId, from, to, (id, weight, epochDay) -> {
+            assertEquals(180.0, weight, 0.001);
+            days.add(epochDay);
+        });
+
+        assertEquals(31, visited);
+        assertEquals(Long.valueOf(from), days.get(0));
+        assertEquals(Long.valueOf(to), days.get(days.size() - 1));
+    }
+
+    @Test
+    public void unusedIndexesAreNotCreated() {
+        Cursor cursor = dbHelper.getReadableDatabase().rawQuery(
+                "SELECT name FROM sqlite_master WHERE type='index' AND name IN (?, ?)",
+                new String[]{"idx_user_weights", "idx_weight_date"});
+        try {
+            assertEquals(0, cursor.getCount());
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Returns the EXPLAIN QUERY PLAN detail lines for a statement
+     */
+    private String explain(String sql, String... args) {
+        StringBuilder plan = new StringBuilder();
+        Cursor cursor = dbHelper.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN " + sql, args);
+        try {
+            int detailIndex = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detailIndex)).append('\n');
+            }
+        } finally {
+            cursor.close();
+        }
+        return plan.toString();
+    }
+}
@@ -0,0 +1,116 @@
+package com.josephklenk.androidproject;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.StrictMode;
+import android.os.strictmode.Violation;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented test that fails if the dashboard touches the database on
+ * the main thread, detected via StrictMode disk read/write violations.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MainThreadDiskAccessTest {
+    private static final String APP_PACKAGE = "com.josephklenk.androidproject";
+    private static final int ENTRY_COUNT = 20;
+    private static final long RENDER_TIMEOUT_MS = 5000;
+
+    private final List<Violation> violations = new CopyOnWriteArrayList<>();
+    private StrictMode.ThreadPolicy originalPolicy;
+    private long userId;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("penaltyListener requires API 28", Build.VERSION.SDK_INT >= Build.VERSION_CODES.P);
+
+        // Seed data from the test thread, before the policy is installed
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        DatabaseHelper dbHelper = DatabaseHelper.getInstance(context);
+        String username = "strict" + System.nanoTime();
+        userId = dbHelper.addUser(username, "password1");
+        assertNotEquals(-1, userId);
+        long today = LocalDate.now().toEpochDay();
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            dbHelper.addWeight(userId, 180.0 - i * 0.5, today - i);
+        }
+        dbHelper.setGoalWeight(userId, 170.0);
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            originalPolicy = StrictMode.getThreadPolicy();
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .penaltyListener(Runnable::run, violations::add)
+                    .build());
+        });
+    }
+
+    @After
+    public void tearDown() {
+        if (originalPolicy != null) {
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(
+                    () -> StrictMode.setThreadPolicy(originalPolicy));
+        }
+    }
+
+    @Test
+    public void dashboardDoesNotAccessDatabaseOnMainThread() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        Intent intent = new Intent(context, WeightTrackerActivity.class);
+        intent.putExtra("USER_ID", userId);
+
+        try (ActivityScenario<WeightTrackerActivity> scenario = ActivityScenario.launch(intent)) {
+            AtomicInteger itemCount = new AtomicInteger();
+            long deadline = System.currentTimeMillis() + RENDER_TIMEOUT_MS;
+            while (itemCount.get() < ENTRY_COUNT && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+                scenario.onActivity(activity -> {
+                    RecyclerView recyclerView = activity.findViewById(R.id.weightHistoryRecyclerView);
+                    RecyclerView.Adapter<?> adapter = recyclerView.getAdapter();
+                    itemCount.set(adapter == null ? 0 : adapter.getItemCount());
+                });
+            }
+            assertEquals("History did not render", ENTRY_COUNT, itemCount.get());
+        }
+
+        for (Violation violation : violations) {
+            if (isDatabaseAccessFromApp(violation)) {
+                throw new AssertionError("Database accessed on main thread", violation);
+            }
+        }
+    }
+
+    /**
+     * Only count violations raised by SQLite on behalf of this app's code;
+     * framework startup disk access is outside the scope of this check.
+     */
+    private static boolean isDatabaseAccessFromApp(Violation violation) {
+        boolean fromSqlite = false;
+        boolean fromApp = false;
+        for (StackTraceElement frame : violation.getStackTrace()) {
+            String className = frame.getClassName();
+            fromSqlite |= className.startsWith("android.database.sqlite");
+            fromApp |= className.startsWith(APP_PACKAGE);
+        }
+        return fromSqlite && fromApp;
+    }
+}
@@ -0,0 +1,139 @@
+package com.josephklenk.androidproject;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for the write-through latest/goal weight cache.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SummaryCacheTest {
+    private static final String TEST_DB = "WeightTrackerCacheTest.db";
+    private static final long START_DAY = LocalDate.of(2025, 1, 1).toEpochDay();
+    private static final double DELTA = 0.0001;
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+    private long userId;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DatabaseHelper(context, TEST_DB);
+        userId = dbHelper.addUser("cachetester", "password1");
+        assertNotEquals(-1, userId);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void repeatedReadsAreServedFromCache() {
+        dbHelper.setGoalWeight(userId, 170.0);
+        dbHelper.addWeight(userId, 180.0, START_DAY);
+        long misses = dbHelper.getSummaryCacheMissCount();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(180.0, dbHelper.getLatestWeight(userId), DELTA);
+            assertEquals(170.0, dbHelper.getGoalWeight(userId), DELTA);
+        }
+
+        // Both values were written through, so no refresh needed the database
+        assertEquals(misses, dbHelper.getSummaryCacheMissCount());
+        assertEquals(20, dbHelper.getSummaryCacheHitCount());
+    }
+
+    @Test
+    public void missingValuesAreCachedAfterFirstLookup() {
+        assertEquals(-1, dbHelper.getGoalWeight(userId), DELTA);
+        assertEquals(-1, dbHelper.getGoalWeight(userId), DELTA);
+        assertEquals(1, dbHelper.getSummaryCacheMissCount());
+        assertEquals(1, dbHelper.getSummaryCacheHitCount());
+    }
+
+    @Test
+    public void deleteInvalidatesLatestWeight() {
+        dbHelper.addWeight(userId, 180.0, START_DAY);
+        dbHelper.addWeight(userId, 178.0, START_DAY + 1);
+        assertEquals(178.0, dbHelper.getLatestWeight(userId), DELTA);
+
+        dbHelper.deleteWeight(newestWeightId());
+
+        long misses = dbHelper.getSummaryCacheMissCount();
+        assertEquals(180.0, dbHelper.getLatestWeight(userId), DELTA);
+        assertEquals(misses + 1, dbHelper.getSummaryCacheMissCount());
+    }
+
+    @Test
+    public void goalUpdateReplacesCachedValue() {
+        dbHelper.setGoalWeight(userId, 170.0);
+        assertEquals(170.0, dbHelper.getGoalWeight(userId), DELTA);
+        dbHelper.setGoalWeight(userId, 165.0);
+        assertEquals(165.0, dbHelper.getGoalWeight(userId), DELTA);
+    }
+
+    @Test
+    public void rolledBackWritesNeverReachTheCache() {
+        dbHelper.addWeight(userId, 180.0, START_DAY);
+        dbHelper.setGoalWeight(userId, 170.0);
+
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            dbHelper.addWeight(userId, 250.0, START_DAY + 1);
+            dbHelper.setGoalWeight(userId, 150.0);
+            // Not marked successful, so both writes roll back
+        } finally {
+            db.endTransaction();
+        }
+
+        assertEquals(180.0, dbHelper.getLatestWeight(userId), DELTA);
+        assertEquals(170.0, dbHelper.getGoalWeight(userId), DELTA);
+
+        // The next write outside a transaction resumes write-through caching
+        dbHelper.addWeight(userId, 179.0, START_DAY + 2);
+        long misses = dbHelper.getSummaryCacheMissCount();
+        assertEquals(179.0, dbHelper.getLatestWeight(userId), DELTA);
+        assertEquals(misses, dbHelper.getSummaryCacheMissCount());
+    }
+
+    @Test
+    public void committedTransactionalWritesAreReadThrough() {
+        dbHelper.addWeight(userId, 180.0, START_DAY);
+
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            dbHelper.addWeight(userId, 181.0, START_DAY + 1);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        assertEquals(181.0, dbHelper.getLatestWeight(userId), DELTA);
+    }
+
+    private long newestWeightId() {
+        try (Cursor cursor = dbHelper.getWeights(userId)) {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getLong(cursor.getColumnIndexOrThrow("id"));
+        }
+    }
+}
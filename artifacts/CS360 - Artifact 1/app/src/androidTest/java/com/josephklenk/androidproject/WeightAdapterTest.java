@@ -0,0 +1,176 @@
+package com.josephklenk.androidproject;
+
+import android.content.Context;
+import android.content.Intent;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for WeightAdapter's incremental list updates, hosted
+ * in the dashboard's RecyclerView so binds reflect real layout passes.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WeightAdapterTest {
+    private static final int ROW_COUNT = 20;
+    private static final long START_DAY = 20_000;
+
+    private ActivityScenario<WeightTrackerActivity> scenario;
+    private final AtomicInteger binds = new AtomicInteger();
+    private WeightAdapter adapter;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        long userId = DatabaseHelper.getInstance(context).addUser("adaptertest" + System.nanoTime(), "password1");
+        assertNotEquals(-1, userId);
+
+        Intent intent = new Intent(context, WeightTrackerActivity.class);
+        intent.putExtra("USER_ID", userId);
+        scenario = ActivityScenario.launch(intent);
+        scenario.onActivity(activity -> {
+            adapter = new WeightAdapter(AsyncWeightRepository.getInstance(activity), activity) {
+                @Override
+                public void onBindViewHolder(@NonNull WeightViewHolder holder, int position) {
+                    binds.incrementAndGet();
+                    super.onBindViewHolder(holder, position);
+                }
+            };
+            RecyclerView recyclerView = activity.findViewById(R.id.weightHistoryRecyclerView);
+            recyclerView.setAdapter(adapter);
+        });
+    }
+
+    @After
+    public void tearDown() {
+        scenario.close();
+    }
+
+    @Test
+    public void singleInsertBindsOnlyTheNewRow() throws Exception {
+        submitAndSettle(rowsNewestFirst(ROW_COUNT));
+        assertEquals(ROW_COUNT, adapter.getItemCount());
+        assertTrue("initial layout should bind rows", binds.get() > 0);
+
+        // Newest entry goes on top, as after a save
+        binds.set(0);
+        submitAndSettle(rowsNewestFirst(ROW_COUNT + 1));
+
+        assertEquals(ROW_COUNT + 1, adapter.getItemCount());
+        assertEquals(1, binds.get());
+    }
+
+    @Test
+    public void unchangedListBindsNothing() throws Exception {
+        submitAndSettle(rowsNewestFirst(ROW_COUNT));
+
+        binds.set(0);
+        submitAndSettle(rowsNewestFirst(ROW_COUNT));
+        assertEquals(0, binds.get());
+    }
+
+    @Test
+    public void itemIdsAreEntryIds() throws Exception {
+        submitAndSettle(WeightAdapter.Rows.of(new long[]{42}, new double[]{180.0}, new long[]{START_DAY}));
+        assertTrue(adapter.hasStableIds());
+        assertEquals(42, adapter.getItemId(0));
+    }
+
+    @Test
+    public void pageCursorConvertsToRows() {
+        DatabaseHelper dbHelper = DatabaseHelper.getInstance(InstrumentationRegistry.getInstrumentation().getTargetContext());
+        long userId = dbHelper.addUser("cursortest" + System.nanoTime(), "password1");
+        long firstId = dbHelper.addWeight(userId, 180.3, START_DAY);
+        long secondId = dbHelper.addWeight(userId, 179.8, START_DAY + 1);
+
+        // The storage layer's page SQL must expose the column names the adapter reads
+        DatabaseHelper.WeightPage page = dbHelper.getWeightsPage(userId, DatabaseHelper.FIRST_PAGE, ROW_COUNT);
+        WeightAdapter.Rows rows = WeightAdapter.Rows.fromCursor(page.getCursor());
+
+        assertEquals(2, rows.size);
+        assertEquals(secondId, rows.ids[0]);
+        assertEquals(firstId, rows.ids[1]);
+        assertEquals(179.8, rows.weights[0], 0);
+        assertEquals(180.3, rows.weights[1], 0);
+    }
+
+    @Test
+    public void dashboardReloadKeepsLoadedDepth() {
+        DatabaseHelper dbHelper = DatabaseHelper.getInstance(InstrumentationRegistry.getInstrumentation().getTargetContext());
+        long userId = dbHelper.addUser("depthtest" + System.nanoTime(), "password1");
+        int total = DatabaseHelper.DEFAULT_PAGE_SIZE * 2 + 10;
+        long[] ids = new long[total];
+        for (int i = 0; i < total; i++) {
+            ids[i] = dbHelper.addWeight(userId, 180.0 + i, START_DAY + i);
+        }
+
+        // Two pages are loaded when a save triggers the reload
+        int loaded = DatabaseHelper.DEFAULT_PAGE_SIZE * 2;
+        DatabaseHelper.Dashboard dashboard = dbHelper.getDashboard(userId, loaded);
+        DatabaseHelper.WeightPage history = dashboard.getHistory();
+        WeightAdapter.Rows rows = WeightAdapter.Rows.fromCursor(history.getCursor());
+
+        assertEquals(loaded, rows.size);
+        assertEquals(ids[total - 1], rows.ids[0]);
+        assertEquals(ids[total - loaded], rows.ids[loaded - 1]);
+
+        // Scrolling on continues right after the reloaded rows
+        DatabaseHelper.WeightPage next = dbHelper.getWeightsPage(userId, history.getNextPageToken(),
+                DatabaseHelper.DEFAULT_PAGE_SIZE);
+        WeightAdapter.Rows older = WeightAdapter.Rows.fromCursor(next.getCursor());
+        assertEquals(total - loaded, older.size);
+        assertEquals(ids[total - loaded - 1], older.ids[0]);
+        assertEquals(DatabaseHelper.NO_MORE_PAGES, next.getNextPageToken());
+    }
+
+    @Test
+    public void rowsCarryPreformattedLabels() {
+        WeightAdapter.Rows rows = WeightAdapter.Rows.of(new long[]{1}, new double[]{180.25}, new long[]{0});
+        assertEquals("1970-01-01", rows.dateLabels[0]);
+        assertTrue(rows.weightLabels[0], rows.weightLabels[0].endsWith(" lbs"));
+    }
+
+    /**
+     * Entries 1..count, newest (highest id) first as the history shows them
+     */
+    private static WeightAdapter.Rows rowsNewestFirst(int count) {
+        long[] ids = new long[count];
+        double[] weights = new double[count];
+        long[] epochDays = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = count - i;
+            weights[i] = 180.0 + ids[i];
+            epochDays[i] = START_DAY + ids[i];
+        }
+        return WeightAdapter.Rows.of(ids, weights, epochDays);
+    }
+
+    /**
+     * Submits rows and waits for the diff to apply and the resulting layout to finish
+     */
+    private void submitAndSettle(WeightAdapter.Rows rows) throws InterruptedException {
+        CountDownLatch committed = new CountDownLatch(1);
+        scenario.onActivity(activity -> adapter.submitRows(rows, committed::countDown));
+        assertTrue("diff never committed", committed.await(5, TimeUnit.SECONDS));
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        scenario.onActivity(activity -> {
+            RecyclerView recyclerView = activity.findViewById(R.id.weightHistoryRecyclerView);
+            recyclerView.getItemAnimator().endAnimations();
+        });
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+    }
+}
@@ -0,0 +1,139 @@
+package com.josephklenk.androidproject;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for loading and updating the in-memory weight series.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WeightSeriesTest {
+    private static final String TEST_DB = "WeightTrackerSeriesTest.db";
+    private static final long START_DAY = LocalDate.of(2025, 1, 1).toEpochDay();
+    private static final double DELTA = 0.0001;
+
+    private Context context;
+    private DatabaseHelper dbHelper;
+    private long userId;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbHelper = new DatabaseHelper(context, TEST_DB);
+        userId = dbHelper.addUser("seriestester", "password1");
+        assertNotEquals(-1, userId);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void loadReturnsEntriesOldestFirst() {
+        dbHelper.addWeight(userId, 178.0, START_DAY + 2);
+        dbHelper.addWeight(userId, 180.0, START_DAY);
+        dbHelper.addWeight(userId, 179.0, START_DAY + 1);
+
+        WeightSeries series = WeightSeries.load(dbHelper, userId);
+
+        assertNotNull(series);
+        assertEquals(3, series.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(START_DAY + i, series.getEpochDay(i));
+            assertEquals(180.0 - i, series.getWeight(i), DELTA);
+        }
+    }
+
+    @Test
+    public void loadIsEmptyForUserWithoutEntries() {
+        WeightSeries series = WeightSeries.load(dbHelper, userId);
+
+        assertNotNull(series);
+        assertTrue(series.isEmpty());
+    }
+
+    @Test
+    public void addAndRemoveKeepDateOrder() {
+        WeightSeries series = new WeightSeries(0);
+        series.add(1, 180.0, START_DAY);
+        series.add(2, 176.0, START_DAY + 10);
+        series.add(3, 178.0, START_DAY + 5);
+        series.add(4, 177.5, START_DAY + 5);
+
+        assertArrayEquals(new long[] {1, 3, 4, 2}, ids(series));
+
+        assertTrue(series.remove(3));
+        assertFalse(series.remove(3));
+        assertArrayEquals(new long[] {1, 4, 2}, ids(series));
+    }
+
+    @Test
+    public void searchFindsDates() {
+        WeightSeries series = new WeightSeries(0);
+        for (int i = 0; i < 100; i++) {
+            series.add(i, 180.0, START_DAY + i * 2);
+        }
+
+        assertEquals(10, series.indexOf(START_DAY + 20));
+        assertEquals(-12, series.indexOf(START_DAY + 21));
+        assertEquals(11, series.lowerBound(START_DAY + 21));
+        assertEquals(0, series.lowerBound(0));
+        assertEquals(100, series.upperBound(START_DAY + 1000));
+    }
+
+    @Test
+    public void changeSinceMeasuresFromLastEntryBeforeTheDate() {
+        WeightSeries series = new WeightSeries(0);
+        assertTrue(Double.isNaN(series.changeSince(START_DAY)));
+        series.add(1, 182.0, START_DAY);
+        assertTrue(Double.isNaN(series.changeSince(START_DAY)));
+
+        series.add(2, 181.0, START_DAY + 3);
+        series.add(3, 179.5, START_DAY + 9);
+        series.add(4, 179.0, START_DAY + 10);
+
+        // Baseline is the entry from day 3, the last one on or before day 5
+        assertEquals(-2.0, series.changeSince(START_DAY + 5), DELTA);
+        // No entry that old: measure from the oldest
+        assertEquals(-3.0, series.changeSince(START_DAY - 7), DELTA);
+        // Baseline would be the newest entry itself: use the one before it
+        assertEquals(-0.5, series.changeSince(START_DAY + 10), DELTA);
+
+        // The trend follows in-place updates
+        series.remove(4);
+        assertEquals(-1.5, series.changeSince(START_DAY + 5), DELTA);
+    }
+
+    @Test
+    public void loadedSeriesFeedsTheTrend() {
+        dbHelper.addWeight(userId, 180.0, START_DAY);
+        dbHelper.addWeight(userId, 178.4, START_DAY + 7);
+
+        WeightSeries series = WeightSeries.load(dbHelper, userId);
+
+        assertNotNull(series);
+        assertEquals(-1.6, series.changeSince(START_DAY), DELTA);
+    }
+
+    private static long[] ids(WeightSeries series) {
+        long[] ids = new long[series.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = series.getId(i);
+        }
+        return ids;
+    }
+}
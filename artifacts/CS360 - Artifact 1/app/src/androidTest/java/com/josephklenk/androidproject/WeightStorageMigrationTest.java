@@ -0,0 +1,194 @@
+package com.josephklenk.androidproject;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.josephklenk.androidproject.core.WeightSchema;
+import com.josephklenk.androidproject.core.Weights;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for integer tenth-of-a-pound weight storage and the
+ * upgrade from REAL pound columns.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WeightStorageMigrationTest {
+    private static final String TEST_DB = "WeightTrackerStorageTest.db";
+    private static final long START_DAY = LocalDate.of(2025, 1, 1).toEpochDay();
+    private static final double[] LEGACY_WEIGHTS = {180.3, 72.7, 199.9, 150.0, 0.1, 1000.0};
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void upgradeRoundTripsRealWeights() {
+        createVersion9Database();
+
+        DatabaseHelper dbHelper = new DatabaseHelper(context, TEST_DB);
+        try {
+            long[] ids = new long[LEGACY_WEIGHTS.length];
+            double[] weights = new double[LEGACY_WEIGHTS.length];
+            int visited = dbHelper.forEachWeightBetween(1, START_DAY, START_DAY + LEGACY_WEIGHTS.length,
+                    (id, weight, epochDay) -> {
+                        int i = (int) (epochDay - START_DAY);
+                        ids[i] = id;
+                        weights[i] = weight;
+                    });
+
+            assertEquals(LEGACY_WEIGHTS.length, visited);
+            for (int i = 0; i < LEGACY_WEIGHTS.length; i++) {
+                assertEquals(i + 1, ids[i]);
+                assertEquals(LEGACY_WEIGHTS[i], weights[i], 0);
+            }
+            assertEquals(1000.0, dbHelper.getLatestWeight(1), 0);
+            assertEquals(165.5, dbHelper.getGoalWeight(1), 0);
+
+            // Summaries were reseeded from the converted rows
+            DatabaseHelper.UserStats stats = dbHelper.getUserStats(1);
+            assertNotNull(stats);
+            assertEquals(LEGACY_WEIGHTS.length, stats.getEntryCount());
+            assertEquals(0.1, stats.getMinWeight(), 0);
+            assertEquals(1000.0, stats.getMaxWeight(), 0);
+
+            // New ids continue after the migrated rows
+            assertEquals(LEGACY_WEIGHTS.length + 1, dbHelper.addWeight(1, 181.0, START_DAY + 10));
+        } finally {
+            dbHelper.close();
+        }
+    }
+
+    @Test
+    public void migrateBeforeOpenReportsProgress() {
+        createVersion9Database();
+
+        DatabaseHelper dbHelper = new DatabaseHelper(context, TEST_DB);
+        try {
+            List<Double> fractions = new ArrayList<>();
+            assertTrue(dbHelper.migrate((version, fraction) -> fractions.add(fraction)));
+            assertFalse(fractions.isEmpty());
+            assertEquals(1.0, fractions.get(fractions.size() - 1), 0);
+
+            // Already current, so opening the helper runs no upgrade and a second migrate is a no-op
+            assertEquals(WeightSchema.VERSION, dbHelper.getReadableDatabase().getVersion());
+            assertEquals(165.5, dbHelper.getGoalWeight(1), 0);
+            assertTrue(dbHelper.migrate(null));
+        } finally {
+            dbHelper.close();
+        }
+    }
+
+    @Test
+    public void weightsAreStoredAsIntegers() {
+        DatabaseHelper dbHelper = new DatabaseHelper(context, TEST_DB);
+        try {
+            long userId = dbHelper.addUser("storagetester", "password1");
+            dbHelper.addWeight(userId, 180.34, START_DAY);
+            dbHelper.setGoalWeight(userId, 170.0);
+
+            SQLiteDatabase db = dbHelper.getReadableDatabase();
+            try (Cursor cursor = db.rawQuery("SELECT typeof(weight), weight, unit FROM weights", null)) {
+                assertTrue(cursor.moveToFirst());
+                assertEquals("integer", cursor.getString(0));
+                assertEquals(1803, cursor.getLong(1));
+                assertEquals(Weights.UNIT_POUNDS, cursor.getInt(2));
+            }
+            try (Cursor cursor = db.rawQuery("SELECT typeof(goal_weight) FROM goals", null)) {
+                assertTrue(cursor.moveToFirst());
+                assertEquals("integer", cursor.getString(0));
+            }
+            // The cached value matches what was stored, not what was passed in
+            assertEquals(180.3, dbHelper.getLatestWeight(userId), 0);
+        } finally {
+            dbHelper.close();
+        }
+    }
+
+    @Test
+    public void aggregatesAreExact() {
+        DatabaseHelper dbHelper = new DatabaseHelper(context, TEST_DB);
+        try {
+            long userId = dbHelper.addUser("sumtester", "password1");
+            for (int i = 0; i < 1000; i++) {
+                dbHelper.addWeight(userId, 180.1, START_DAY + i);
+            }
+
+            DatabaseHelper.UserStats stats = dbHelper.getUserStats(userId);
+            assertEquals(180.1, stats.getMeanWeight(), 0);
+            assertEquals(0.0, stats.getStdDevWeight(), 0);
+            for (DatabaseHelper.WeightRollup rollup : dbHelper.getWeightRollups(userId,
+                    WeightSchema.ROLLUP_MONTH, START_DAY, START_DAY + 999)) {
+                assertEquals(180.1, rollup.getAverageWeight(), 0);
+            }
+        } finally {
+            dbHelper.close();
+        }
+    }
+
+    @Test
+    public void kilogramEntriesAreConvertedAndRejectedWhenTooSmall() {
+        DatabaseHelper dbHelper = new DatabaseHelper(context, TEST_DB);
+        try {
+            long userId = dbHelper.addUser("unittester", "password1");
+            assertNotEquals(-1, dbHelper.addWeight(userId, 80.0, Weights.UNIT_KILOGRAMS, START_DAY));
+            assertEquals(176.4, dbHelper.getLatestWeight(userId), 0);
+
+            // Rounds to zero tenths, so it is rejected rather than stored as 0
+            assertEquals(-1, dbHelper.addWeight(userId, 0.04, START_DAY));
+            assertEquals(-1, dbHelper.addWeight(userId, 180.0, 99, START_DAY));
+        } finally {
+            dbHelper.close();
+        }
+    }
+
+    /**
+     * Writes the version 9 schema and data with REAL weight columns,
+     * as an installed copy of the previous release would have
+     */
+    private void createVersion9Database() {
+        SQLiteDatabase db = context.openOrCreateDatabase(TEST_DB, Context.MODE_PRIVATE, null);
+        try {
+            db.execSQL("CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT, username TEXT UNIQUE NOT NULL,"
+                    + " password TEXT NOT NULL, salt TEXT NOT NULL, iterations INTEGER NOT NULL DEFAULT 0)");
+            db.execSQL("CREATE TABLE weights (id INTEGER PRIMARY KEY AUTOINCREMENT, user_id INTEGER NOT NULL,"
+                    + " weight REAL NOT NULL, epoch_day INTEGER NOT NULL)");
+            db.execSQL("CREATE TABLE goals (id INTEGER PRIMARY KEY AUTOINCREMENT, user_id INTEGER UNIQUE NOT NULL,"
+                    + " goal_weight REAL NOT NULL)");
+            db.execSQL("CREATE TABLE user_stats (user_id INTEGER PRIMARY KEY, entry_count INTEGER NOT NULL,"
+                    + " min_weight REAL, max_weight REAL, sum_weight REAL NOT NULL, sum_sq_weight REAL NOT NULL,"
+                    + " latest_weight_id INTEGER, latest_weight REAL)");
+            db.execSQL("INSERT INTO users (username, password, salt) VALUES ('legacy', 'x', '')");
+            for (int i = 0; i < LEGACY_WEIGHTS.length; i++) {
+                db.execSQL("INSERT INTO weights (user_id, weight, epoch_day) VALUES (1, ?, ?)",
+                        new Object[]{LEGACY_WEIGHTS[i], START_DAY + i});
+            }
+            db.execSQL("INSERT INTO goals (user_id, goal_weight) VALUES (1, 165.5)");
+            db.setVersion(9);
+        } finally {
+            db.close();
+        }
+    }
+}
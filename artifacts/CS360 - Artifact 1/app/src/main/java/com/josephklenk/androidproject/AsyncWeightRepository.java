@@ -0,0 +1,332 @@
+package com.josephklenk.androidproject;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+import com.josephklenk.androidproject.core.WeightMigrations;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous data access for the UI layer
+ * Runs every DatabaseHelper call on a bounded background executor and
+ * delivers results on the main thread, dropping them if the owning
+ * activity is destroyed first
+ */
+public class AsyncWeightRepository {
+    private static final String TAG = "AsyncWeightRepository";
+
+    // Executor bounds - one writer plus one concurrent WAL reader, with a capped backlog
+    private static final int THREAD_COUNT = 2;
+    private static final int MAX_QUEUED_TASKS = 64;
+
+    private static AsyncWeightRepository sInstance;
+
+    private final DatabaseHelper dbHelper;
+    private final ThreadPoolExecutor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Receives a result on the main thread
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    /**
+     * Returns the application-scoped repository, creating it on first use
+     * @param context Any context; only the application context is retained
+     * @return Shared repository instance
+     */
+    public static synchronized AsyncWeightRepository getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new AsyncWeightRepository(DatabaseHelper.getInstance(context));
+        }
+        return sInstance;
+    }
+
+    AsyncWeightRepository(DatabaseHelper dbHelper) {
+        this.dbHelper = dbHelper;
+        this.executor = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT,
+                30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(MAX_QUEUED_TASKS),
+                new DatabaseThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    // DATABASE OPERATIONS
+
+    /**
+     * Brings the database file up to the current schema before other work.
+     * Progress is posted in whole-percent steps, only while the task is live.
+     * @param progress Receives overall progress from 0 to 1 on the main thread, may be null
+     * @return Task handle; callback receives true if the database is ready, false if the upgrade failed
+     */
+    public Task migrate(LifecycleOwner owner, Callback<Double> progress, Callback<Boolean> callback) {
+        AtomicInteger lastPercent = new AtomicInteger(-1);
+        Task[] handle = new Task[1]; // Set before any posted update runs, since both are on the main thread
+        WeightMigrations.ProgressListener listener = (version, fraction) -> {
+            int percent = (int) (fraction * 100);
+            if (progress == null || lastPercent.getAndSet(percent) == percent) {
+                return;
+            }
+            mainHandler.post(() -> {
+                if (!handle[0].isCancelled()) {
+                    progress.onResult(fraction);
+                }
+            });
+        };
+        handle[0] = execute(owner, () -> dbHelper.migrate(listener), false, callback);
+        return handle[0];
+    }
+
+    // USER OPERATIONS
+
+    /**
+     * Verifies credentials and resolves the user ID in one lookup
+     * @return Task handle; callback receives the authentication result
+     */
+    public Task login(LifecycleOwner owner, String username, String password,
+                      Callback<DatabaseHelper.AuthResult> callback) {
+        return execute(owner, () -> dbHelper.authenticate(username, password),
+                new DatabaseHelper.AuthResult(DatabaseHelper.AuthResult.ERROR, -1), callback);
+    }
+
+    /**
+     * Starts a remembered session for an authenticated user
+     * @return Task handle; callback receives the session token or null on failure
+     */
+    public Task createSession(LifecycleOwner owner, long userId, Callback<String> callback) {
+        return execute(owner, () -> dbHelper.createSession(userId), null, callback);
+    }
+
+    /**
+     * Resolves a stored session token without re-verifying the password
+     * @return Task handle; callback receives the user ID or -1 if the session is invalid
+     */
+    public Task resumeSession(LifecycleOwner owner, String token, Callback<Long> callback) {
+        return execute(owner, () -> dbHelper.getSessionUserId(token), -1L, callback);
+    }
+
+    /**
+     * Ends a remembered session on sign-out
+     * @return Task handle; callback receives true once the token no longer resolves
+     */
+    public Task revokeSession(LifecycleOwner owner, String token, Callback<Boolean> callback) {
+        return execute(owner, () -> dbHelper.revokeSession(token), false, callback);
+    }
+
+    /**
+     * Creates a user account
+     * @return Task handle; callback receives the new user ID or -1 on failure
+     */
+    public Task addUser(LifecycleOwner owner, String username, String password, Callback<Long> callback) {
+        return execute(owner, () -> dbHelper.addUser(username, password), -1L, callback);
+    }
+
+    // WEIGHT OPERATIONS
+
+    /**
+     * Adds a weight entry
+     * @return Task handle; callback receives the entry ID or -1 on failure
+     */
+    public Task addWeight(LifecycleOwner owner, long userId, double weight, long epochDay, Callback<Long> callback) {
+        return execute(owner, () -> dbHelper.addWeight(userId, weight, epochDay), -1L, callback);
+    }
+
+    /**
+     * Deletes a weight entry
+     * @return Task handle; callback receives null once the delete has run
+     */
+    public Task deleteWeight(LifecycleOwner owner, long weightId, Callback<Void> callback) {
+        return execute(owner, () -> {
+            dbHelper.deleteWeight(weightId);
+            return null;
+        }, null, callback);
+    }
+
+    /**
+     * Loads one page of weight history. The cursor window is filled on the
+     * worker thread so binding rows on the main thread does not touch disk.
+     * @return Task handle; callback receives the page or null on error
+     */
+    public Task getWeightsPage(LifecycleOwner owner, long userId, long pageToken, int pageSize,
+                               Callback<DatabaseHelper.WeightPage> callback) {
+        return execute(owner, () -> {
+            DatabaseHelper.WeightPage page = dbHelper.getWeightsPage(userId, pageToken, pageSize);
+            if (page != null) {
+                page.getCursor().getCount();
+            }
+            return page;
+        }, null, callback);
+    }
+
+    /**
+     * Loads the dashboard snapshot; the history cursor is filled on the worker
+     * @return Task handle; callback receives the snapshot or null on error
+     */
+    public Task getDashboard(LifecycleOwner owner, long userId, Callback<DatabaseHelper.Dashboard> callback) {
+        return getDashboard(owner, userId, DatabaseHelper.DEFAULT_PAGE_SIZE, callback);
+    }
+
+    /**
+     * Loads the dashboard snapshot with the given number of newest entries
+     * @param historySize Number of history entries to load
+     * @return Task handle; callback receives the snapshot or null on error
+     */
+    public Task getDashboard(LifecycleOwner owner, long userId, int historySize,
+                             Callback<DatabaseHelper.Dashboard> callback) {
+        return execute(owner, () -> dbHelper.getDashboard(userId, historySize), null, callback);
+    }
+
+    /**
+     * Loads a user's full history into a primitive time series
+     * @return Task handle; callback receives the series or null on error
+     */
+    public Task loadWeightSeries(LifecycleOwner owner, long userId, Callback<WeightSeries> callback) {
+        return execute(owner, () -> WeightSeries.load(dbHelper, userId), null, callback);
+    }
+
+    /**
+     * @return Task handle; callback receives the latest weight or -1 if none
+     */
+    public Task getLatestWeight(LifecycleOwner owner, long userId, Callback<Double> callback) {
+        return execute(owner, () -> dbHelper.getLatestWeight(userId), -1.0, callback);
+    }
+
+    // GOAL OPERATIONS
+
+    /**
+     * @return Task handle; callback receives the entry ID or -1 on failure
+     */
+    public Task setGoalWeight(LifecycleOwner owner, long userId, double weight, Callback<Long> callback) {
+        return execute(owner, () -> dbHelper.setGoalWeight(userId, weight), -1L, callback);
+    }
+
+    /**
+     * @return Task handle; callback receives the goal weight or -1 if none
+     */
+    public Task getGoalWeight(LifecycleOwner owner, long userId, Callback<Double> callback) {
+        return execute(owner, () -> dbHelper.getGoalWeight(userId), -1.0, callback);
+    }
+
+    /**
+     * Runs work on the database executor and posts the result to the main
+     * thread. Must be called from the main thread so the lifecycle observer
+     * can be registered. If the owner is destroyed before the result arrives
+     * the task is cancelled and the callback is never invoked.
+     * @param owner Lifecycle that scopes the callback
+     * @param work Work to run off the main thread
+     * @param fallback Result delivered instead if the work throws or the queue is full
+     * @param callback Receives the result on the main thread, may be null
+     * @return Handle that can cancel the task
+     */
+    <T> Task execute(LifecycleOwner owner, Callable<T> work, T fallback, Callback<T> callback) {
+        Task task = new Task(owner);
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+            task.cancel();
+            return task;
+        }
+        owner.getLifecycle().addObserver(task);
+
+        try {
+            task.future = executor.submit(() -> {
+                if (task.isCancelled()) {
+                    return;
+                }
+                T result;
+                try {
+                    result = work.call();
+                } catch (Exception e) {
+                    Log.e(TAG, "Background database task failed", e);
+                    result = fallback;
+                }
+                T delivered = result;
+                mainHandler.post(() -> task.deliver(callback, delivered));
+            });
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Database task rejected, queue full", e);
+            // Callers restore their UI in the callback, so a rejected task still answers with the fallback
+            mainHandler.post(() -> task.deliver(callback, fallback));
+        }
+        return task;
+    }
+
+    /**
+     * Handle for a submitted task, cancelled automatically on ON_DESTROY
+     */
+    public static class Task implements LifecycleEventObserver {
+        private final LifecycleOwner owner;
+        private volatile boolean cancelled;
+        private volatile Future<?> future;
+
+        Task(LifecycleOwner owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * Cancels the task; a queued task will not run and a running task's
+         * result is discarded. SQLite work already in progress is not interrupted.
+         */
+        public void cancel() {
+            cancelled = true;
+            Future<?> pending = future;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+            if (event == Lifecycle.Event.ON_DESTROY) {
+                cancel();
+                detach();
+            }
+        }
+
+        /**
+         * Delivers the result on the main thread unless cancelled
+         */
+        private <T> void deliver(Callback<T> callback, T result) {
+            detach();
+            if (!cancelled && callback != null) {
+                callback.onResult(result);
+            }
+        }
+
+        private void detach() {
+            owner.getLifecycle().removeObserver(this);
+        }
+    }
+
+    /**
+     * Names database threads and keeps them below UI priority
+     */
+    private static class DatabaseThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            return new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "weight-db-" + count.incrementAndGet());
+        }
+    }
+}
\ No newline at end of file
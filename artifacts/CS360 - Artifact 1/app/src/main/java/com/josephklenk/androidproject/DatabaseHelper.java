@@ -2,74 +2,141 @@ package com.josephklenk.androidproject;
 
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.database.Cursor;
+import android.database.MatrixCursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
 import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Looper;
 import android.util.Log;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
-import java.util.Base64;
+import android.util.LruCache;
+import com.josephklenk.androidproject.core.PasswordHasher;
+import com.josephklenk.androidproject.core.Sessions;
+import com.josephklenk.androidproject.core.SqlDatabase;
+import com.josephklenk.androidproject.core.Validation;
+import com.josephklenk.androidproject.core.WeightMigrations;
+import com.josephklenk.androidproject.core.WeightRepository;
+import com.josephklenk.androidproject.core.WeightSchema;
+import com.josephklenk.androidproject.core.Weights;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class DatabaseHelper extends SQLiteOpenHelper {
+import static com.josephklenk.androidproject.core.WeightSchema.*;
+
+public class DatabaseHelper extends SQLiteOpenHelper implements WeightRepository {
     private static final String TAG = "DatabaseHelper";
     private static final String DATABASE_NAME = "WeightTracker.db";
-    private static final int DATABASE_VERSION = 2; // Incremented for schema changes
-
-    // Table names
-    private static final String TABLE_USERS = "users";
-    private static final String TABLE_WEIGHTS = "weights";
-    private static final String TABLE_GOALS = "goals";
-
-    // Column names
-    private static final String KEY_ID = "id";
-    private static final String KEY_USER_ID = "user_id";
-    private static final String KEY_USERNAME = "username";
-    private static final String KEY_PASSWORD = "password";
-    private static final String KEY_SALT = "salt";
-    private static final String KEY_WEIGHT = "weight";
-    private static final String KEY_DATE = "date";
-    private static final String KEY_GOAL_WEIGHT = "goal_weight";
+    private static final int DATABASE_VERSION = WeightSchema.VERSION;
 
     // Security constants
-    private static final String HASH_ALGORITHM = "SHA-256";
-    private static final int SALT_LENGTH = 16;
+    private static final String PREFS_NAME = "WeightTrackerPrefs";
+    private static final String PREF_PBKDF2_ITERATIONS = "pbkdf2_iterations"; // Calibrated once per install
+
+    // Connection tuning - WAL lets readers run on pooled connections while a write is in progress
+    private static final boolean WAL_ENABLED = true;
+    private static final String SYNCHRONOUS_MODE = "NORMAL"; // WAL is crash-safe at NORMAL; skips fsync per commit
+
+    // Per-user latest/goal weights kept in memory; small since few users share a device
+    private static final int SUMMARY_CACHE_SIZE = 16;
+
+    // Process-wide instance; owns the single long-lived connection
+    private static DatabaseHelper sInstance;
+
+    private final SummaryCache summaryCache = new SummaryCache(SUMMARY_CACHE_SIZE);
+
+    // Compiled hot-path statements, one set per thread so bindings are never shared and no
+    // lock is held while SQLite waits for a connection; see cachedStatement
+    private final ThreadLocal<ThreadStatements> threadStatements = ThreadLocal.withInitial(ThreadStatements::new);
+    private final List<SQLiteStatement> openStatements = new ArrayList<>(); // Every statement handed out, for close()
+    private SQLiteDatabase statementDatabase;
+    private int statementGeneration; // Bumped when statements are closed; guarded by openStatements
+
+    private final Context appContext;
+    private final Object workFactorLock = new Object(); // Guards calibration only, never the helper itself
+    private volatile int workFactor; // PBKDF2 iterations for new hashes, loaded or calibrated on first use
+
+    /**
+     * Returns the application-scoped helper, creating it on first use.
+     * The underlying connection stays open for the life of the process so
+     * callers must not close it themselves.
+     * @param context Any context; only the application context is retained
+     * @return Shared DatabaseHelper instance
+     */
+    public static synchronized DatabaseHelper getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new DatabaseHelper(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Closes the shared connection and releases the instance. Intended for
+     * tests and process shutdown; the next getInstance call reopens it.
+     */
+    public static synchronized void closeInstance() {
+        if (sInstance != null) {
+            sInstance.close();
+            sInstance = null;
+        }
+    }
+
+    private DatabaseHelper(Context context) {
+        this(context, DATABASE_NAME);
+    }
+
+    /**
+     * Creates a helper over a named database file. Package-private so
+     * instrumented tests can work against a scratch database.
+     * @param context Application context
+     * @param databaseName Database file name
+     */
+    DatabaseHelper(Context context, String databaseName) {
+        super(context, databaseName, null, DATABASE_VERSION);
+        this.appContext = context.getApplicationContext();
+    }
+
+    /**
+     * Configures each connection before it is used. With WAL enabled the
+     * framework keeps a pool of read connections next to the single write
+     * connection, so cursors read a committed snapshot instead of waiting on
+     * writers. The platform picks the pool's size and apps cannot change it;
+     * the only choice in the app's hands is whether the pool exists
+     * (WAL_ENABLED).
+     */
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        if (WAL_ENABLED) {
+            db.enableWriteAheadLogging();
+        }
+        db.execSQL("PRAGMA synchronous=" + SYNCHRONOUS_MODE);
+        Log.d(TAG, "Connection configured, WAL: " + db.isWriteAheadLoggingEnabled());
+    }
 
-    public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    /**
+     * Releases cached statements before the connection they belong to
+     */
+    @Override
+    public synchronized void close() {
+        synchronized (openStatements) {
+            closeStatements();
+        }
+        super.close();
     }
 
     @Override
     public void onCreate(SQLiteDatabase db) {
         try {
-            // Enhanced users table with salt column for security
-            String CREATE_USERS_TABLE = "CREATE TABLE " + TABLE_USERS + "("
-                    + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + KEY_USERNAME + " TEXT UNIQUE NOT NULL,"
-                    + KEY_PASSWORD + " TEXT NOT NULL,"
-                    + KEY_SALT + " TEXT NOT NULL" + ")";
-
-            String CREATE_WEIGHTS_TABLE = "CREATE TABLE " + TABLE_WEIGHTS + "("
-                    + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + KEY_USER_ID + " INTEGER NOT NULL,"
-                    + KEY_WEIGHT + " REAL NOT NULL,"
-                    + KEY_DATE + " TEXT NOT NULL,"
-                    + "FOREIGN KEY(" + KEY_USER_ID + ") REFERENCES " + TABLE_USERS + "(" + KEY_ID + "))";
-
-            String CREATE_GOALS_TABLE = "CREATE TABLE " + TABLE_GOALS + "("
-                    + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + KEY_USER_ID + " INTEGER UNIQUE NOT NULL,"
-                    + KEY_GOAL_WEIGHT + " REAL NOT NULL,"
-                    + "FOREIGN KEY(" + KEY_USER_ID + ") REFERENCES " + TABLE_USERS + "(" + KEY_ID + "))";
-
-            db.execSQL(CREATE_USERS_TABLE);
-            db.execSQL(CREATE_WEIGHTS_TABLE);
-            db.execSQL(CREATE_GOALS_TABLE);
-
-            // Create indexes for better performance
-            db.execSQL("CREATE INDEX idx_user_weights ON " + TABLE_WEIGHTS + "(" + KEY_USER_ID + ")");
-            db.execSQL("CREATE INDEX idx_weight_date ON " + TABLE_WEIGHTS + "(" + KEY_DATE + ")");
+            // Same DDL the JVM stand-ins run, so tests and benchmarks see this schema
+            execAll(db, createStatements());
 
             Log.d(TAG, "Database tables created successfully");
         } catch (SQLiteException e) {
@@ -78,33 +145,88 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         }
     }
 
+    /**
+     * Upgrades inside the framework's single transaction. Normally migrate()
+     * has already brought the file up to date before the helper opens it, so
+     * this only runs if something opened the database first. A failure
+     * propagates and rolls back, leaving the data at its old version.
+     */
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
         Log.d(TAG, "Upgrading database from version " + oldVersion + " to " + newVersion);
-        
+        // Same steps the JDBC backend runs
+        WeightMigrations.migrate(new MigrationDatabase(db), null);
+    }
+
+    /**
+     * Brings an existing database file up to the current version on its own
+     * connection, committing each migration step and batch separately so a
+     * long upgrade survives the process being killed and resumes where it
+     * stopped. Call on a background thread before first use of the helper.
+     * @param listener Progress receiver, called on the migrating thread; may be null
+     * @return true if the database is current or was not created yet, false if the upgrade failed
+     */
+    public synchronized boolean migrate(WeightMigrations.ProgressListener listener) {
+        File file = appContext.getDatabasePath(getDatabaseName());
+        if (!file.exists()) {
+            return true;
+        }
+
+        SQLiteDatabase db = null;
         try {
-            if (oldVersion < 2) {
-                // Add salt column to existing users table
-                db.execSQL("ALTER TABLE " + TABLE_USERS + " ADD COLUMN " + KEY_SALT + " TEXT DEFAULT ''");
-                
-                // Generate salts for existing users (if any)
-                Cursor cursor = db.query(TABLE_USERS, new String[]{KEY_ID}, null, null, null, null, null);
-                while (cursor.moveToNext()) {
-                    long userId = cursor.getLong(0);
-                    String salt = generateSalt();
-                    ContentValues values = new ContentValues();
-                    values.put(KEY_SALT, salt);
-                    db.update(TABLE_USERS, values, KEY_ID + "=?", new String[]{String.valueOf(userId)});
-                }
-                cursor.close();
+            db = SQLiteDatabase.openDatabase(file.getPath(), null, SQLiteDatabase.OPEN_READWRITE);
+            if (db.getVersion() >= DATABASE_VERSION) {
+                return true;
             }
+            onConfigure(db);
+            Log.d(TAG, "Migrating database from version " + db.getVersion() + " to " + DATABASE_VERSION);
+            WeightMigrations.migrate(new MigrationDatabase(db), listener);
+            return true;
+        } catch (SQLiteException | IllegalStateException e) {
+            Log.e(TAG, "Error migrating database", e);
+            return false;
+        } finally {
+            if (db != null) {
+                db.close();
+            }
+        }
+    }
+
+    /**
+     * Runs a list of schema statements in order
+     * @param db Database being created, upgraded or repaired
+     * @param statements Statements from WeightSchema
+     */
+    private static void execAll(SQLiteDatabase db, List<String> statements) {
+        for (String sql : statements) {
+            db.execSQL(sql);
+        }
+    }
+
+    /**
+     * Repairs the per-user statistics and rollup tables from raw weight
+     * history. Triggers keep them current during normal use; call this after
+     * imports that bypass DatabaseHelper or if a summary is suspected stale.
+     * @return true if the rebuild committed, false otherwise
+     */
+    @Override
+    public boolean rebuildSummaries() {
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                execAll(db, rebuildUserStats());
+                execAll(db, rebuildWeightRollups());
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            summaryCache.invalidateAllLatest();
+            Log.d(TAG, "User statistics and rollups rebuilt");
+            return true;
         } catch (SQLiteException e) {
-            Log.e(TAG, "Error upgrading database", e);
-            // If upgrade fails, recreate tables
-            db.execSQL("DROP TABLE IF EXISTS " + TABLE_GOALS);
-            db.execSQL("DROP TABLE IF EXISTS " + TABLE_WEIGHTS);
-            db.execSQL("DROP TABLE IF EXISTS " + TABLE_USERS);
-            onCreate(db);
+            Log.e(TAG, "Error rebuilding summaries", e);
+            return false;
         }
     }
 
@@ -114,23 +236,26 @@ public class DatabaseHelper extends SQLiteOpenHelper {
      * @param password Plain text password
      * @return User ID if successful, -1 if failed
      */
+    @Override
     public long addUser(String username, String password) {
-        if (!isValidInput(username) || !isValidInput(password)) {
+        if (!Validation.isValidInput(username) || !Validation.isValidInput(password)) {
             Log.w(TAG, "Invalid username or password provided");
             return -1;
         }
 
-        SQLiteDatabase db = null;
+        assertNotMainThread("addUser");
         try {
-            db = this.getWritableDatabase();
+            SQLiteDatabase db = this.getWritableDatabase();
             
-            String salt = generateSalt();
-            String hashedPassword = hashPassword(password, salt);
+            String salt = PasswordHasher.generateSalt();
+            int iterations = getWorkFactor();
+            String hashedPassword = PasswordHasher.hash(password, salt, iterations);
             
             ContentValues values = new ContentValues();
             values.put(KEY_USERNAME, username.trim());
             values.put(KEY_PASSWORD, hashedPassword);
             values.put(KEY_SALT, salt);
+            values.put(KEY_ITERATIONS, iterations);
             
             long result = db.insert(TABLE_USERS, null, values);
             Log.d(TAG, "User added with ID: " + result);
@@ -139,52 +264,160 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         } catch (SQLiteException | SecurityException e) {
             Log.e(TAG, "Error adding user: " + username, e);
             return -1;
-        } finally {
-            if (db != null && db.isOpen()) {
-                db.close();
-            }
         }
     }
 
     /**
-     * Authenticates user with secure password verification
+     * Authenticates a user and resolves their ID from a single lookup of the
+     * user row. Runs the password hash, so call it off the main thread.
+     * A successful login with a legacy record or an out-of-date work factor
+     * rehashes the password with the current PBKDF2 settings. A corrupt
+     * stored hash is reported as ERROR, not as a wrong password.
      * @param username User's username
      * @param password Plain text password
-     * @return true if authentication successful, false otherwise
+     * @return Result carrying the user ID on success or the failure reason
      */
-    public boolean checkUser(String username, String password) {
-        if (!isValidInput(username) || !isValidInput(password)) {
-            return false;
+    @Override
+    public AuthResult authenticate(String username, String password) {
+        if (!Validation.isValidInput(username) || !Validation.isValidInput(password)) {
+            return new AuthResult(AuthResult.BAD_PASSWORD, -1);
         }
 
-        SQLiteDatabase db = null;
+        assertNotMainThread("authenticate");
         Cursor cursor = null;
         try {
-            db = this.getReadableDatabase();
-            cursor = db.query(TABLE_USERS, 
-                new String[]{KEY_ID, KEY_PASSWORD, KEY_SALT},
-                KEY_USERNAME + "=?", new String[]{username.trim()}, 
-                null, null, null);
-                
-            if (cursor.moveToFirst()) {
-                String storedHash = cursor.getString(1);
-                String salt = cursor.getString(2);
-                
-                // Handle legacy users without salt
-                if (salt == null || salt.isEmpty()) {
-                    return password.equals(storedHash); // Fallback for old passwords
+            SQLiteDatabase db = this.getReadableDatabase();
+            cursor = db.rawQuery(SQL_USER_CREDENTIALS, new String[]{username.trim()});
+
+            if (!cursor.moveToFirst()) {
+                return new AuthResult(AuthResult.NO_SUCH_USER, -1);
+            }
+
+            long userId = cursor.getLong(0);
+            String storedHash = cursor.getString(1);
+            String salt = cursor.getString(2);
+            int iterations = cursor.getInt(3);
+            cursor.close();
+            cursor = null;
+
+            if (storedHash == null || storedHash.isEmpty()) {
+                Log.e(TAG, "No stored password hash for user: " + userId);
+                return new AuthResult(AuthResult.ERROR, -1);
+            }
+
+            // Handle legacy users without salt
+            if (salt == null || salt.isEmpty()) {
+                if (!PasswordHasher.verifyPlainText(password, storedHash)) { // Fallback for old passwords
+                    return new AuthResult(AuthResult.BAD_PASSWORD, -1);
                 }
-                
-                return verifyPassword(password, storedHash, salt);
+                rehashPassword(userId, password);
+                return new AuthResult(AuthResult.LEGACY_HASH, userId);
             }
-            return false;
-            
-        } catch (SQLiteException e) {
+
+            if (!PasswordHasher.verify(password, storedHash, salt, iterations)) {
+                return new AuthResult(AuthResult.BAD_PASSWORD, -1);
+            }
+            boolean legacy = iterations == PasswordHasher.LEGACY_ITERATIONS;
+            if (legacy || iterations < getWorkFactor()) {
+                rehashPassword(userId, password);
+            }
+            return new AuthResult(legacy ? AuthResult.LEGACY_HASH : AuthResult.SUCCESS, userId);
+
+        } catch (SQLiteException | SecurityException | IllegalArgumentException e) {
             Log.e(TAG, "Error authenticating user: " + username, e);
-            return false;
+            return new AuthResult(AuthResult.ERROR, -1);
         } finally {
             if (cursor != null) cursor.close();
-            if (db != null && db.isOpen()) db.close();
+        }
+    }
+
+    /**
+     * Authenticates user with secure password verification
+     * @param username User's username
+     * @param password Plain text password
+     * @return true if authentication successful, false otherwise
+     */
+    public boolean checkUser(String username, String password) {
+        return authenticate(username, password).isAuthenticated();
+    }
+
+    // SESSION OPERATIONS
+
+    /**
+     * Starts a remembered session for a user who has just authenticated.
+     * Expired sessions are purged at the same time.
+     * @param userId Authenticated user ID
+     * @return Opaque token to keep on the device, or null if it could not be stored
+     */
+    @Override
+    public String createSession(long userId) {
+        String token = Sessions.newToken();
+        long now = System.currentTimeMillis();
+
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            db.delete(TABLE_SESSIONS, KEY_EXPIRES_AT + "<=?", new String[]{String.valueOf(now)});
+
+            ContentValues values = new ContentValues();
+            values.put(KEY_TOKEN_HASH, Sessions.hashToken(token));
+            values.put(KEY_USER_ID, userId);
+            values.put(KEY_EXPIRES_AT, now + Sessions.TTL_MILLIS);
+            if (db.insert(TABLE_SESSIONS, null, values) == -1) {
+                return null;
+            }
+            Log.d(TAG, "Session created for user: " + userId);
+            return token;
+
+        } catch (SQLiteException | SecurityException e) {
+            Log.e(TAG, "Error creating session for user: " + userId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Resolves a remembered session without any password hashing
+     * @param token Token returned by createSession
+     * @return User ID, or -1 if the token is unknown or expired
+     */
+    @Override
+    public long getSessionUserId(String token) {
+        if (token == null || token.isEmpty()) {
+            return -1;
+        }
+
+        try {
+            SQLiteStatement statement = cachedStatement(SQL_SESSION_USER);
+            statement.bindString(1, Sessions.hashToken(token));
+            statement.bindLong(2, System.currentTimeMillis());
+            return statement.simpleQueryForLong();
+        } catch (SQLiteDoneException e) {
+            return -1; // Unknown or expired
+        } catch (SQLiteException | SecurityException e) {
+            Log.e(TAG, "Error resolving session", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Deletes a remembered session on sign-out
+     * @param token Token returned by createSession
+     * @return true if the token no longer resolves, false on error
+     */
+    @Override
+    public boolean revokeSession(String token) {
+        if (token == null || token.isEmpty()) {
+            return true;
+        }
+
+        try {
+            SQLiteStatement statement = cachedStatement(SQL_DELETE_SESSION);
+            statement.bindString(1, Sessions.hashToken(token));
+            statement.executeUpdateDelete();
+            Log.d(TAG, "Session revoked");
+            return true;
+        } catch (SQLiteException | SecurityException e) {
+            Log.e(TAG, "Error revoking session", e);
+            return false;
         }
     }
 
@@ -193,178 +426,475 @@ public class DatabaseHelper extends SQLiteOpenHelper {
      * @param username Username to look up
      * @return User ID or -1 if not found
      */
+    @Override
     public long getUserId(String username) {
-        if (!isValidInput(username)) {
+        if (!Validation.isValidInput(username)) {
             return -1;
         }
 
-        SQLiteDatabase db = null;
-        Cursor cursor = null;
         try {
-            db = this.getReadableDatabase();
-            cursor = db.query(TABLE_USERS, new String[]{KEY_ID},
-                    KEY_USERNAME + "=?", new String[]{username.trim()}, 
-                    null, null, null);
-            
-            if (cursor.moveToFirst()) {
-                return cursor.getLong(0);
-            }
-            return -1;
-            
+            SQLiteStatement statement = cachedStatement(SQL_USER_ID);
+            statement.bindString(1, username.trim());
+            return statement.simpleQueryForLong();
+        } catch (SQLiteDoneException e) {
+            return -1; // No such user
         } catch (SQLiteException e) {
             Log.e(TAG, "Error getting user ID for: " + username, e);
             return -1;
-        } finally {
-            if (cursor != null) cursor.close();
-            if (db != null && db.isOpen()) db.close();
         }
     }
 
     /**
-     * Adds a weight entry with validation
+     * Adds a weight entry in pounds with validation
+     * @param userId User ID
+     * @param weight Weight in pounds
+     * @param epochDay Date as days since 1970-01-01 (LocalDate.toEpochDay)
+     * @return Weight entry ID if successful, -1 if failed
+     */
+    public long addWeight(long userId, double weight, long epochDay) {
+        return addWeight(userId, weight, Weights.UNIT_POUNDS, epochDay);
+    }
+
+    /**
+     * Adds a weight entry with validation. The value is stored in tenths of
+     * a pound; the entry unit is kept so it can be shown as entered.
      * @param userId User ID
      * @param weight Weight value
-     * @param date Date string
+     * @param unit Weights.UNIT_POUNDS or Weights.UNIT_KILOGRAMS
+     * @param epochDay Date as days since 1970-01-01 (LocalDate.toEpochDay)
      * @return Weight entry ID if successful, -1 if failed
      */
-    public long addWeight(long userId, double weight, String date) {
-        if (!isValidWeight(weight) || !isValidInput(date)) {
+    @Override
+    public long addWeight(long userId, double weight, int unit, long epochDay) {
+        long stored = Weights.toStored(weight, unit);
+        if (!Weights.isValidStored(stored) || !Validation.isValidEpochDay(epochDay)) {
             Log.w(TAG, "Invalid weight or date provided");
             return -1;
         }
 
-        SQLiteDatabase db = null;
         try {
-            db = this.getWritableDatabase();
-            ContentValues values = new ContentValues();
-            values.put(KEY_USER_ID, userId);
-            values.put(KEY_WEIGHT, weight);
-            values.put(KEY_DATE, date.trim());
-            
-            long result = db.insert(TABLE_WEIGHTS, null, values);
+            long result;
+            SQLiteDatabase db = this.getWritableDatabase();
+            SQLiteStatement statement = cachedStatement(SQL_INSERT_WEIGHT);
+            statement.bindLong(1, userId);
+            statement.bindLong(2, stored);
+            statement.bindLong(3, unit);
+            statement.bindLong(4, epochDay);
+            result = statement.executeInsert();
+            if (result != -1) {
+                if (db.inTransaction()) {
+                    // Not committed yet and may roll back; other readers must keep seeing SQLite's snapshot
+                    summaryCache.holdUncommitted(userId);
+                } else {
+                    // Newest id is always the latest entry, matching the user_stats trigger
+                    summaryCache.putLatest(userId, Weights.fromStored(stored));
+                }
+            }
             Log.d(TAG, "Weight entry added with ID: " + result);
             return result;
             
         } catch (SQLiteException e) {
             Log.e(TAG, "Error adding weight entry for user: " + userId, e);
             return -1;
-        } finally {
-            if (db != null && db.isOpen()) {
-                db.close();
+        }
+    }
+
+    /**
+     * Adds many weight entries in a single transaction. Rows are bound
+     * through one compiled statement, so the whole batch costs one commit
+     * instead of one per row. Invalid or rejected rows are skipped and
+     * reported by index; the remaining rows are still inserted.
+     * @param userId User ID
+     * @param entries Weight entries to insert
+     * @return Result with inserted count and indices of failed rows
+     */
+    @Override
+    public BulkInsertResult addWeights(long userId, List<WeightEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return new BulkInsertResult(0, Collections.<Integer>emptyList());
+        }
+
+        List<Integer> failedRows = new ArrayList<>();
+        int inserted = 0;
+        try {
+            SQLiteDatabase db = this.getWritableDatabase();
+            SQLiteStatement statement = cachedStatement(SQL_INSERT_WEIGHT);
+
+            boolean nested = db.inTransaction();
+
+            db.beginTransaction();
+            try {
+                for (int i = 0; i < entries.size(); i++) {
+                    WeightEntry entry = entries.get(i);
+                    long stored = entry != null ? Weights.toStored(entry.getWeight(), Weights.UNIT_POUNDS) : 0;
+                    if (!Weights.isValidStored(stored) || !Validation.isValidEpochDay(entry.getEpochDay())) {
+                        failedRows.add(i);
+                        continue;
+                    }
+
+                    statement.bindLong(1, userId);
+                    statement.bindLong(2, stored);
+                    statement.bindLong(3, Weights.UNIT_POUNDS);
+                    statement.bindLong(4, entry.getEpochDay());
+                    try {
+                        if (statement.executeInsert() != -1) {
+                            inserted++;
+                        } else {
+                            failedRows.add(i);
+                        }
+                    } catch (SQLiteException e) {
+                        Log.w(TAG, "Bulk insert rejected row " + i + " for user: " + userId, e);
+                        failedRows.add(i);
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+                if (nested) {
+                    summaryCache.holdUncommitted(userId);
+                } else {
+                    summaryCache.invalidateLatest(userId);
+                }
             }
+
+            Log.d(TAG, "Bulk inserted " + inserted + " weight entries, " + failedRows.size() + " failed");
+            return new BulkInsertResult(inserted, failedRows);
+
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Error bulk adding weight entries for user: " + userId, e);
+            // Transaction rolled back; nothing from this batch was written
+            List<Integer> allRows = new ArrayList<>(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                allRows.add(i);
+            }
+            return new BulkInsertResult(0, allRows);
         }
     }
 
     /**
-     * Gets weight entries for a user with optional pagination
+     * Gets the most recent page of weight entries for a user
      * @param userId User ID
      * @return Cursor with weight entries
      */
     public Cursor getWeights(long userId) {
-        SQLiteDatabase db = null;
+        WeightPage page = getWeightsPage(userId, FIRST_PAGE, DEFAULT_PAGE_SIZE);
+        return page != null ? page.getCursor() : null;
+    }
+
+    /**
+     * Gets one page of weight entries, newest first, using keyset pagination.
+     * Each page seeks directly to the continuation point on the
+     * (user_id, id) index rather than skipping rows with OFFSET, so fetch
+     * time does not grow with how far back the user has scrolled.
+     * @param userId User ID
+     * @param pageToken FIRST_PAGE, or the token returned with the previous page
+     * @param pageSize Maximum number of entries to return
+     * @return Page of weight entries, or null on error
+     */
+    public WeightPage getWeightsPage(long userId, long pageToken, int pageSize) {
+        if (pageToken == NO_MORE_PAGES || pageSize <= 0) {
+            Log.w(TAG, "Invalid page request for user: " + userId);
+            return null;
+        }
+
         try {
-            db = this.getReadableDatabase();
-            String[] columns = {KEY_ID, KEY_WEIGHT, KEY_DATE};
-            String selection = KEY_USER_ID + "=?";
-            String[] selectionArgs = {String.valueOf(userId)};
-            String orderBy = KEY_ID + " DESC LIMIT 50"; // Limit to recent 50 entries for performance
-            
-            return db.query(TABLE_WEIGHTS, columns, selection, selectionArgs, null, null, orderBy);
-            
+            SQLiteDatabase db = this.getReadableDatabase();
+            Cursor cursor = db.rawQuery(SQL_WEIGHTS_PAGE, new String[]{
+                    String.valueOf(userId), String.valueOf(pageToken), String.valueOf(pageSize)});
+
+            // A full page means there may be older rows; continue from the last id seen
+            long nextToken = NO_MORE_PAGES;
+            if (cursor.getCount() == pageSize && cursor.moveToLast()) {
+                nextToken = cursor.getLong(0);
+            }
+            cursor.moveToPosition(-1);
+            return new WeightPage(cursor, nextToken);
+
         } catch (SQLiteException e) {
-            Log.e(TAG, "Error getting weights for user: " + userId, e);
+            Log.e(TAG, "Error getting weights page for user: " + userId, e);
             return null;
         }
     }
 
+    @Override
+    public int forEachWeightInPage(long userId, long pageToken, int pageSize, WeightVisitor visitor) {
+        WeightPage page = getWeightsPage(userId, pageToken, pageSize);
+        if (page == null) {
+            return -1;
+        }
+        return visitAndClose(page.getCursor(), visitor, userId);
+    }
+
     /**
-     * Gets the latest weight for a user
+     * Gets a user's weight entries within a date range, oldest first
      * @param userId User ID
-     * @return Latest weight or -1 if not found
+     * @param fromEpochDay First day to include
+     * @param toEpochDay Last day to include
+     * @return Cursor with weight entries, or null on error
      */
-    public double getLatestWeight(long userId) {
-        SQLiteDatabase db = null;
-        Cursor cursor = null;
+    public Cursor getWeightsBetween(long userId, long fromEpochDay, long toEpochDay) {
+        if (fromEpochDay > toEpochDay) {
+            Log.w(TAG, "Invalid date range: " + fromEpochDay + " > " + toEpochDay);
+            return null;
+        }
+
+        try {
+            SQLiteDatabase db = this.getReadableDatabase();
+            return db.rawQuery(SQL_WEIGHTS_BETWEEN, new String[]{String.valueOf(userId),
+                    String.valueOf(fromEpochDay), String.valueOf(toEpochDay)});
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Error getting weights in range for user: " + userId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Streams a user's weight entries within a date range to a visitor,
+     * oldest first, without handing a cursor to the caller
+     * @param userId User ID
+     * @param fromEpochDay First day to include
+     * @param toEpochDay Last day to include
+     * @param visitor Receives each matching entry
+     * @return Number of entries visited, or -1 on error
+     */
+    @Override
+    public int forEachWeightBetween(long userId, long fromEpochDay, long toEpochDay, WeightVisitor visitor) {
+        Cursor cursor = getWeightsBetween(userId, fromEpochDay, toEpochDay);
+        if (cursor == null) {
+            return -1;
+        }
+        return visitAndClose(cursor, visitor, userId);
+    }
+
+    /**
+     * Feeds each (id, pounds, epoch day) row of a weight query to a visitor
+     * @return Number of rows visited, or -1 on error
+     */
+    private int visitAndClose(Cursor cursor, WeightVisitor visitor, long userId) {
         try {
-            db = this.getReadableDatabase();
-            String query = "SELECT " + KEY_WEIGHT + " FROM " + TABLE_WEIGHTS +
-                    " WHERE " + KEY_USER_ID + "=?" +
-                    " ORDER BY " + KEY_ID + " DESC LIMIT 1";
-            cursor = db.rawQuery(query, new String[]{String.valueOf(userId)});
-
-            if (cursor != null && cursor.moveToFirst()) {
-                return cursor.getDouble(0);
+            int visited = 0;
+            while (cursor.moveToNext()) {
+                visitor.visit(cursor.getLong(0), cursor.getDouble(1), cursor.getLong(2)); // Already in pounds
+                visited++;
             }
+            return visited;
+
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Error streaming weights for user: " + userId, e);
             return -1;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Gets the summary statistics for a user with a single primary-key lookup
+     * @param userId User ID
+     * @return Statistics, or null if the user has no entries or on error
+     */
+    @Override
+    public UserStats getUserStats(long userId) {
+        Cursor cursor = null;
+        try {
+            SQLiteDatabase db = this.getReadableDatabase();
+            cursor = db.rawQuery(SQL_USER_STATS, new String[]{String.valueOf(userId)});
+
+            if (cursor.moveToFirst()) {
+                return new UserStats(cursor.getInt(0), cursor.getLong(1), cursor.getLong(2),
+                        cursor.getLong(3), cursor.getLong(4), cursor.getLong(5));
+            }
+            return null;
+
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Error getting statistics for user: " + userId, e);
+            return null;
+        } finally {
+            if (cursor != null) cursor.close();
+        }
+    }
+
+    /**
+     * Gets aggregated weight history for charts and reports
+     * @param userId User ID
+     * @param granularity ROLLUP_DAY, ROLLUP_WEEK or ROLLUP_MONTH
+     * @param fromEpochDay First day to include; the period containing it is included
+     * @param toEpochDay Last day to include
+     * @return Rollups ordered by period, empty on error
+     */
+    @Override
+    public List<WeightRollup> getWeightRollups(long userId, int granularity, long fromEpochDay, long toEpochDay) {
+        List<WeightRollup> rollups = new ArrayList<>();
+        Cursor cursor = null;
+        try {
+            SQLiteDatabase db = this.getReadableDatabase();
+            long fromPeriod = periodStart(granularity, fromEpochDay);
+            cursor = db.rawQuery(SQL_WEIGHT_ROLLUPS, new String[]{String.valueOf(userId),
+                    String.valueOf(granularity), String.valueOf(fromPeriod), String.valueOf(toEpochDay)});
+
+            while (cursor.moveToNext()) {
+                rollups.add(new WeightRollup(cursor.getLong(0), cursor.getInt(1), cursor.getLong(2),
+                        cursor.getLong(3), cursor.getLong(4)));
+            }
+            return rollups;
+
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Error getting weight rollups for user: " + userId, e);
+            return rollups;
+        } finally {
+            if (cursor != null) cursor.close();
+        }
+    }
+
+    /**
+     * Loads the dashboard with one page of history
+     * @param userId User ID
+     * @return Dashboard snapshot, or null on error
+     */
+    public Dashboard getDashboard(long userId) {
+        return getDashboard(userId, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Loads everything the dashboard renders from one consistent snapshot:
+     * the summary scalars and the newest history rows come back from a
+     * single statement, so a concurrent save cannot land between them and
+     * no transaction holds the write connection. The rows are copied into
+     * their own cursor. The cached latest and goal weights are refreshed
+     * from the result.
+     * @param userId User ID
+     * @param historySize Number of newest entries to load, e.g. however many are already shown
+     * @return Dashboard snapshot, or null on error
+     */
+    public Dashboard getDashboard(long userId, int historySize) {
+        Cursor cursor = null;
+        try {
+            long generation = summaryCache.generation();
+            SQLiteDatabase db = this.getReadableDatabase();
+            cursor = db.rawQuery(SQL_DASHBOARD, new String[]{String.valueOf(userId), String.valueOf(historySize)});
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+
+            int entryCount = cursor.isNull(1) ? 0 : cursor.getInt(1);
+            double latest = cursor.isNull(2) ? -1 : Weights.fromStored(cursor.getLong(2));
+            double goal = cursor.isNull(3) ? -1 : Weights.fromStored(cursor.getLong(3));
+            double first = cursor.isNull(4) ? -1 : Weights.fromStored(cursor.getLong(4));
+
+            int rows = cursor.getCount() - 1;
+            MatrixCursor page = new MatrixCursor(new String[]{KEY_ID, KEY_WEIGHT, KEY_EPOCH_DAY}, rows);
+            long lastId = NO_MORE_PAGES;
+            while (cursor.moveToNext()) {
+                lastId = cursor.getLong(5);
+                page.addRow(new Object[]{lastId, cursor.getDouble(6), cursor.getLong(7)});
+            }
+            // A full page means there may be older rows; continue from the last id seen
+            WeightPage history = new WeightPage(page, rows == historySize ? lastId : NO_MORE_PAGES);
+
+            summaryCache.fillLatest(userId, latest, generation);
+            summaryCache.fillGoal(userId, goal, generation);
+            return new Dashboard(latest, goal, entryCount, first, history);
+
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Error loading dashboard for user: " + userId, e);
+            return null;
+        } finally {
+            if (cursor != null) cursor.close();
+        }
+    }
+
+    @Override
+    public DashboardSummary getDashboard(long userId, WeightVisitor history) {
+        Dashboard dashboard = getDashboard(userId);
+        if (dashboard == null || visitAndClose(dashboard.getHistory().getCursor(), history, userId) == -1) {
+            return null;
+        }
+        return dashboard;
+    }
+
+    /**
+     * Gets the latest weight for a user, from the summary cache when
+     * present and otherwise from the maintained user_stats row
+     * @param userId User ID
+     * @return Latest weight or -1 if not found
+     */
+    @Override
+    public double getLatestWeight(long userId) {
+        Double cached = summaryCache.getLatest(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            long generation = summaryCache.generation();
+            double latest = queryWeightForUser(SQL_LATEST_WEIGHT, userId);
+            summaryCache.fillLatest(userId, latest, generation);
+            return latest;
             
         } catch (SQLiteException e) {
             Log.e(TAG, "Error getting latest weight for user: " + userId, e);
             return -1;
-        } finally {
-            if (cursor != null) cursor.close();
-            if (db != null && db.isOpen()) db.close();
         }
     }
 
     /**
      * Sets goal weight for a user
      * @param userId User ID
-     * @param weight Goal weight
+     * @param weight Goal weight in pounds
      * @return Entry ID if successful, -1 if failed
      */
+    @Override
     public long setGoalWeight(long userId, double weight) {
-        if (!isValidWeight(weight)) {
+        long stored = Weights.toStored(weight, Weights.UNIT_POUNDS);
+        if (!Weights.isValidStored(stored)) {
             Log.w(TAG, "Invalid goal weight provided");
             return -1;
         }
 
-        SQLiteDatabase db = null;
         try {
-            db = this.getWritableDatabase();
-            ContentValues values = new ContentValues();
-            values.put(KEY_USER_ID, userId);
-            values.put(KEY_GOAL_WEIGHT, weight);
-            
-            long result = db.insertWithOnConflict(TABLE_GOALS, null, values,
-                    SQLiteDatabase.CONFLICT_REPLACE);
+            long result;
+            SQLiteDatabase db = this.getWritableDatabase();
+            SQLiteStatement statement = cachedStatement(SQL_UPSERT_GOAL);
+            statement.bindLong(1, userId);
+            statement.bindLong(2, stored);
+            statement.bindLong(3, Weights.UNIT_POUNDS);
+            result = statement.executeInsert();
+            if (db.inTransaction()) {
+                summaryCache.holdUncommitted(userId);
+            } else if (result != -1) {
+                summaryCache.putGoal(userId, Weights.fromStored(stored));
+            } else {
+                summaryCache.invalidateGoal(userId);
+            }
             Log.d(TAG, "Goal weight set for user: " + userId);
             return result;
             
         } catch (SQLiteException e) {
             Log.e(TAG, "Error setting goal weight for user: " + userId, e);
             return -1;
-        } finally {
-            if (db != null && db.isOpen()) {
-                db.close();
-            }
         }
     }
 
     /**
-     * Gets goal weight for a user
+     * Gets goal weight for a user, from the summary cache when present
      * @param userId User ID
      * @return Goal weight or -1 if not found
      */
+    @Override
     public double getGoalWeight(long userId) {
-        SQLiteDatabase db = null;
-        Cursor cursor = null;
+        Double cached = summaryCache.getGoal(userId);
+        if (cached != null) {
+            return cached;
+        }
+
         try {
-            db = this.getReadableDatabase();
-            cursor = db.query(TABLE_GOALS, new String[]{KEY_GOAL_WEIGHT},
-                    KEY_USER_ID + "=?", new String[]{String.valueOf(userId)},
-                    null, null, null);
-            
-            if (cursor.moveToFirst()) {
-                return cursor.getDouble(0);
-            }
-            return -1;
+            long generation = summaryCache.generation();
+            double goal = queryWeightForUser(SQL_GOAL_WEIGHT, userId);
+            summaryCache.fillGoal(userId, goal, generation);
+            return goal;
             
         } catch (SQLiteException e) {
             Log.e(TAG, "Error getting goal weight for user: " + userId, e);
             return -1;
-        } finally {
-            if (cursor != null) cursor.close();
-            if (db != null && db.isOpen()) db.close();
         }
     }
 
@@ -372,89 +902,395 @@ public class DatabaseHelper extends SQLiteOpenHelper {
      * Safely deletes a weight entry
      * @param weightId Weight entry ID to delete
      */
+    @Override
     public void deleteWeight(long weightId) {
-        SQLiteDatabase db = null;
+        Cursor cursor = null;
         try {
-            db = this.getWritableDatabase();
-            int rowsAffected = db.delete(TABLE_WEIGHTS, KEY_ID + "=?", 
-                new String[]{String.valueOf(weightId)});
+            SQLiteDatabase db = this.getWritableDatabase();
+            String[] args = new String[]{String.valueOf(weightId)};
+
+            // Resolve the owner first so only that user's cached latest weight is dropped
+            long userId = -1;
+            cursor = db.rawQuery("SELECT " + KEY_USER_ID + " FROM " + TABLE_WEIGHTS
+                    + " WHERE " + KEY_ID + " = ?", args);
+            if (cursor.moveToFirst()) {
+                userId = cursor.getLong(0);
+            }
+
+            int rowsAffected = db.delete(TABLE_WEIGHTS, KEY_ID + "=?", args);
+            if (rowsAffected > 0 && db.inTransaction()) {
+                summaryCache.holdUncommitted(userId);
+            } else if (rowsAffected > 0) {
+                summaryCache.invalidateLatest(userId);
+            }
             
             Log.d(TAG, "Deleted weight entry ID: " + weightId + ", rows affected: " + rowsAffected);
             
         } catch (SQLiteException e) {
             Log.e(TAG, "Error deleting weight entry: " + weightId, e);
         } finally {
-            if (db != null && db.isOpen()) {
-                db.close();
-            }
+            if (cursor != null) cursor.close();
         }
     }
 
-    // SECURITY UTILITY METHODS (Embedded to avoid new files)
+    /**
+     * @return Latest/goal weight lookups answered from memory since the helper was created
+     */
+    public long getSummaryCacheHitCount() {
+        return summaryCache.hitCount();
+    }
 
     /**
-     * Generates a random salt for password hashing
-     * @return Base64 encoded salt string
+     * @return Latest/goal weight lookups that had to query the database
      */
-    private String generateSalt() {
-        SecureRandom random = new SecureRandom();
-        byte[] salt = new byte[SALT_LENGTH];
-        random.nextBytes(salt);
-        return Base64.getEncoder().encodeToString(salt);
+    public long getSummaryCacheMissCount() {
+        return summaryCache.missCount();
     }
 
+    // STATEMENT CACHE
+
     /**
-     * Hashes a password with the provided salt
-     * @param password Plain text password
-     * @param salt Salt value for hashing
-     * @return Hashed password as Base64 string
-     * @throws SecurityException if hashing fails
+     * Returns the calling thread's compiled statement for a hot-path query,
+     * compiling it on first use. Statements are reused across calls so
+     * SQLite skips parsing and planning. Each thread binds its own copy, so
+     * callers take no lock: a lock held on a shared statement while SQLite
+     * waits for the connection deadlocks against a thread that owns the
+     * connection in a transaction and needs the same statement.
+     * @param sql One of the SQL_ constants
+     * @return Statement owned by the calling thread, bound to the current database
+     */
+    private SQLiteStatement cachedStatement(String sql) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        ThreadStatements local = threadStatements.get();
+        synchronized (openStatements) {
+            if (statementDatabase != db) {
+                // Helper was closed and reopened; old statements belong to the previous connection
+                closeStatements();
+                statementDatabase = db;
+            }
+            if (local.generation != statementGeneration) {
+                local.statements.clear();
+                local.generation = statementGeneration;
+            }
+        }
+        SQLiteStatement statement = local.statements.get(sql);
+        if (statement == null) {
+            // Compiling borrows a connection, so it runs outside the lock
+            statement = db.compileStatement(sql);
+            local.statements.put(sql, statement);
+            synchronized (openStatements) {
+                openStatements.add(statement);
+            }
+        }
+        return statement;
+    }
+
+    /**
+     * Closes every compiled statement on every thread; caller holds the openStatements lock
+     */
+    private void closeStatements() {
+        for (SQLiteStatement statement : openStatements) {
+            statement.close();
+        }
+        openStatements.clear();
+        statementDatabase = null;
+        statementGeneration++;
+    }
+
+    /**
+     * Runs a cached single-column weight lookup keyed by user ID
+     * @return Weight in pounds, or -1 if there is no row or the value is NULL
      */
-    private String hashPassword(String password, String salt) throws SecurityException {
+    private double queryWeightForUser(String sql, long userId) {
+        SQLiteStatement statement = cachedStatement(sql);
+        statement.bindLong(1, userId);
         try {
-            MessageDigest md = MessageDigest.getInstance(HASH_ALGORITHM);
-            md.update(Base64.getDecoder().decode(salt));
-            byte[] hashedPassword = md.digest(password.getBytes());
-            return Base64.getEncoder().encodeToString(hashedPassword);
-        } catch (NoSuchAlgorithmException e) {
-            throw new SecurityException("Password hashing failed", e);
+            String value = statement.simpleQueryForString();
+            return value != null ? Weights.fromStored(Long.parseLong(value)) : -1;
+        } catch (SQLiteDoneException e) {
+            return -1;
+        }
+    }
+
+    // PASSWORD WORK FACTOR AND REHASH HELPERS
+
+    /**
+     * Returns the PBKDF2 iteration count for new hashes. Loaded from
+     * preferences, or calibrated against this device on first use so one
+     * derivation costs about PasswordHasher.DEFAULT_TARGET_MILLIS.
+     * Calibration runs once under its own lock, so callers racing the first
+     * login wait for it but migrate() and other synchronized helper methods
+     * do not.
+     * @return Iteration count
+     */
+    private int getWorkFactor() {
+        int current = workFactor;
+        if (current != 0) {
+            return current;
+        }
+        synchronized (workFactorLock) {
+            if (workFactor == 0) {
+                SharedPreferences prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+                int loaded = prefs.getInt(PREF_PBKDF2_ITERATIONS, 0);
+                if (loaded == 0) {
+                    loaded = PasswordHasher.calibrate(PasswordHasher.DEFAULT_TARGET_MILLIS);
+                    prefs.edit().putInt(PREF_PBKDF2_ITERATIONS, loaded).apply();
+                    Log.d(TAG, "Calibrated PBKDF2 work factor: " + loaded);
+                }
+                workFactor = loaded;
+            }
+            return workFactor;
         }
     }
 
     /**
-     * Verifies a password against a stored hash
-     * @param password Plain text password to verify
-     * @param storedHash Stored password hash
-     * @param salt Salt used for original hash
-     * @return true if password matches, false otherwise
+     * Replaces a user's stored hash with a fresh salt at the current work
+     * factor. Failure is logged and ignored; the old hash remains valid.
+     * @param userId User whose password was just verified
+     * @param password Verified plain text password
      */
-    private boolean verifyPassword(String password, String storedHash, String salt) {
+    private void rehashPassword(long userId, String password) {
         try {
-            String hashedInput = hashPassword(password, salt);
-            return hashedInput.equals(storedHash);
-        } catch (SecurityException e) {
-            Log.e(TAG, "Password verification failed", e);
-            return false;
+            String salt = PasswordHasher.generateSalt();
+            int iterations = getWorkFactor();
+            ContentValues values = new ContentValues();
+            values.put(KEY_PASSWORD, PasswordHasher.hash(password, salt, iterations));
+            values.put(KEY_SALT, salt);
+            values.put(KEY_ITERATIONS, iterations);
+            this.getWritableDatabase().update(TABLE_USERS, values, KEY_ID + "=?",
+                    new String[]{String.valueOf(userId)});
+            Log.d(TAG, "Upgraded password hash for user: " + userId);
+        } catch (SQLiteException | SecurityException e) {
+            Log.e(TAG, "Error upgrading password hash for user: " + userId, e);
+        }
+    }
+
+    /**
+     * Hashing is slow by design; calling it on the UI thread would freeze the app
+     */
+    private static void assertNotMainThread(String operation) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            throw new IllegalStateException(operation + " hashes a password and must not run on the main thread");
+        }
+    }
+
+    /**
+     * One page of weight history plus the token needed to fetch the next one
+     */
+    public static class WeightPage {
+        private final Cursor cursor;
+        private final long nextPageToken;
+
+        WeightPage(Cursor cursor, long nextPageToken) {
+            this.cursor = cursor;
+            this.nextPageToken = nextPageToken;
+        }
+
+        public Cursor getCursor() {
+            return cursor;
+        }
+
+        /**
+         * @return Token for the following page, or NO_MORE_PAGES at the end of history
+         */
+        public long getNextPageToken() {
+            return nextPageToken;
+        }
+
+        public boolean hasMore() {
+            return nextPageToken != NO_MORE_PAGES;
+        }
+    }
+
+    /**
+     * Immutable snapshot of everything the dashboard shows. The history
+     * cursor is owned by whoever displays it.
+     */
+    public static class Dashboard extends DashboardSummary {
+        private final WeightPage history;
+
+        Dashboard(double latestWeight, double goalWeight, int entryCount, double firstWeight, WeightPage history) {
+            super(latestWeight, goalWeight, entryCount, firstWeight);
+            this.history = history;
+        }
+
+        /**
+         * @return First page of history, newest first
+         */
+        public WeightPage getHistory() {
+            return history;
         }
     }
 
-    // VALIDATION UTILITY METHODS
+    /**
+     * Write-through LRU cache of per-user latest and goal weights. Writers
+     * bump a generation counter so a read that raced with a write cannot
+     * repopulate the cache with the value it read before the write.
+     * A cached -1 records that the user has no entry or no goal.
+     * Writes made inside a caller's transaction are never cached: the user
+     * is read through to SQLite until the writing thread next writes outside
+     * a transaction, since the commit or rollback itself is not observable.
+     */
+    private static class SummaryCache {
+        private final LruCache<Long, Double> latestWeights;
+        private final LruCache<Long, Double> goalWeights;
+        private final Map<Long, Thread> uncommitted = new ConcurrentHashMap<>(); // User -> writing thread
+        private long generation;
+
+        SummaryCache(int maxUsers) {
+            latestWeights = new LruCache<>(maxUsers);
+            goalWeights = new LruCache<>(maxUsers);
+        }
+
+        synchronized long generation() {
+            return generation;
+        }
+
+        Double getLatest(long userId) {
+            return uncommitted.containsKey(userId) ? null : latestWeights.get(userId);
+        }
+
+        Double getGoal(long userId) {
+            return uncommitted.containsKey(userId) ? null : goalWeights.get(userId);
+        }
+
+        synchronized void fillLatest(long userId, double weight, long readGeneration) {
+            if (readGeneration == generation && !uncommitted.containsKey(userId)) {
+                latestWeights.put(userId, weight);
+            }
+        }
+
+        synchronized void fillGoal(long userId, double weight, long readGeneration) {
+            if (readGeneration == generation && !uncommitted.containsKey(userId)) {
+                goalWeights.put(userId, weight);
+            }
+        }
+
+        synchronized void putLatest(long userId, double weight) {
+            generation++;
+            releaseUncommitted(userId);
+            latestWeights.put(userId, weight);
+        }
+
+        synchronized void putGoal(long userId, double weight) {
+            generation++;
+            releaseUncommitted(userId);
+            goalWeights.put(userId, weight);
+        }
+
+        synchronized void invalidateLatest(long userId) {
+            generation++;
+            releaseUncommitted(userId);
+            latestWeights.remove(userId);
+        }
+
+        synchronized void invalidateGoal(long userId) {
+            generation++;
+            releaseUncommitted(userId);
+            goalWeights.remove(userId);
+        }
+
+        /**
+         * Drops a user's entries and bypasses the cache for them while the
+         * calling thread's transaction is open
+         */
+        synchronized void holdUncommitted(long userId) {
+            generation++;
+            latestWeights.remove(userId);
+            goalWeights.remove(userId);
+            uncommitted.put(userId, Thread.currentThread());
+        }
+
+        /**
+         * Called on writes outside a transaction; if this thread held the
+         * user, its transaction has since committed or rolled back
+         */
+        private void releaseUncommitted(long userId) {
+            uncommitted.remove(userId, Thread.currentThread());
+        }
+
+        synchronized void invalidateAllLatest() {
+            generation++;
+            latestWeights.evictAll();
+        }
+
+        long hitCount() {
+            return latestWeights.hitCount() + goalWeights.hitCount();
+        }
+
+        long missCount() {
+            return latestWeights.missCount() + goalWeights.missCount();
+        }
+    }
 
     /**
-     * Validates input strings
-     * @param input Input to validate
-     * @return true if valid, false otherwise
+     * One thread's compiled statements, discarded when the helper closes them all
      */
-    private boolean isValidInput(String input) {
-        return input != null && !input.trim().isEmpty();
+    private static class ThreadStatements {
+        final Map<String, SQLiteStatement> statements = new HashMap<>();
+        int generation;
     }
 
     /**
-     * Validates weight values
-     * @param weight Weight to validate
-     * @return true if valid, false otherwise
+     * Exposes the database being upgraded to the shared migration steps
      */
-    private boolean isValidWeight(double weight) {
-        return weight > 0 && weight <= 1000; // Reasonable weight range
+    private static class MigrationDatabase implements SqlDatabase {
+        private final SQLiteDatabase db;
+
+        MigrationDatabase(SQLiteDatabase db) {
+            this.db = db;
+        }
+
+        @Override
+        public void execSQL(String sql, Object... bindArgs) {
+            db.execSQL(sql, bindArgs);
+        }
+
+        @Override
+        public void inTransaction(Runnable work) {
+            // Nests inside onUpgrade's transaction; stands alone under migrate()
+            db.beginTransaction();
+            try {
+                work.run();
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+
+        @Override
+        public Rows query(String sql, Object... bindArgs) {
+            String[] args = new String[bindArgs.length];
+            for (int i = 0; i < bindArgs.length; i++) {
+                args[i] = String.valueOf(bindArgs[i]);
+            }
+            Cursor cursor = db.rawQuery(sql, args);
+            return new Rows() {
+                @Override
+                public boolean next() {
+                    return cursor.moveToNext();
+                }
+
+                @Override
+                public long getLong(int column) {
+                    return cursor.getLong(column);
+                }
+
+                @Override
+                public String getString(int column) {
+                    return cursor.getString(column);
+                }
+
+                @Override
+                public boolean isNull(int column) {
+                    return cursor.isNull(column);
+                }
+
+                @Override
+                public void close() {
+                    cursor.close();
+                }
+            };
+        }
     }
 }
\ No newline at end of file
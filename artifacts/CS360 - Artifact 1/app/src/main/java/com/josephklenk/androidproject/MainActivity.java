@@ -1,31 +1,98 @@
 package com.josephklenk.androidproject;
 
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.util.Log;
+import android.widget.ProgressBar;
+import android.widget.TextView;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.button.MaterialButton;
+import com.josephklenk.androidproject.core.Validation;
 
 public class MainActivity extends AppCompatActivity {
     private static final String TAG = "MainActivity";
+
+    // Remembered login, resolved against the sessions table on launch
+    static final String PREFS_NAME = "WeightTrackerPrefs";
+    static final String PREF_SESSION_TOKEN = "session_token";
     
     // View components
     private TextInputEditText usernameEditText;
     private TextInputEditText passwordEditText;
     private MaterialButton loginButton;
     private MaterialButton createAccountButton;
+    private ProgressBar upgradeProgressBar;
+    private TextView upgradeStatusText;
     
     // Model layer
-    private DatabaseHelper dbHelper;
+    private AsyncWeightRepository repository;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        setContentView(R.layout.activity_main);
 
         initializeDatabase();
+        if (repository == null) {
+            // Nothing to log in against; show the form disabled beside the error rather than crash on the first click
+            showLoginForm();
+            setButtonsEnabled(false);
+            return;
+        }
+
+        // Upgrade an older database before anything reads it; the progress screen only appears if there is work
+        repository.migrate(this, this::showUpgradeProgress, ready -> {
+            if (!ready) {
+                showError("Your data could not be upgraded. It has been kept and the upgrade will retry next launch.");
+            }
+            resumeOrShowLogin();
+        });
+    }
+
+    /**
+     * Returning users go straight to the dashboard; the login form is only inflated if needed
+     */
+    private void resumeOrShowLogin() {
+        String token = getSharedPreferences(PREFS_NAME, MODE_PRIVATE).getString(PREF_SESSION_TOKEN, null);
+        if (token != null) {
+            repository.resumeSession(this, token, userId -> {
+                if (userId != -1) {
+                    Log.d(TAG, "Resumed session for user: " + userId);
+                    navigateToWeightTracker(userId);
+                } else {
+                    Log.d(TAG, "Stored session expired or invalid");
+                    saveSessionToken(null);
+                    showLoginForm();
+                }
+            });
+            return;
+        }
+
+        showLoginForm();
+    }
+
+    /**
+     * Shows the upgrade screen on the first update and advances its progress bar
+     * @param fraction Overall upgrade progress, 0 to 1
+     */
+    private void showUpgradeProgress(double fraction) {
+        if (upgradeProgressBar == null) {
+            setContentView(R.layout.activity_upgrade);
+            upgradeProgressBar = findViewById(R.id.upgradeProgressBar);
+            upgradeStatusText = findViewById(R.id.upgradeStatusText);
+        }
+        int percent = (int) (fraction * 100);
+        upgradeProgressBar.setProgress(percent);
+        upgradeStatusText.setText("Upgrading your data… " + percent + "%");
+    }
+
+    /**
+     * Inflates the login form and wires up its controls
+     */
+    private void showLoginForm() {
+        setContentView(R.layout.activity_main);
         initializeViews();
         setupEventListeners();
         
@@ -33,11 +100,11 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Initializes the database helper
+     * Initializes the data repository
      */
     private void initializeDatabase() {
         try {
-            dbHelper = new DatabaseHelper(this);
+            repository = AsyncWeightRepository.getInstance(this);
         } catch (Exception e) {
             Log.e(TAG, "Failed to initialize database", e);
             showError("Database initialization failed. Please restart the app.");
@@ -77,23 +144,29 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
-        try {
-            if (dbHelper.checkUser(username, password)) {
-                long userId = dbHelper.getUserId(username);
-                if (userId != -1) {
+        // Password hashing and lookup run on the database executor
+        setButtonsEnabled(false);
+        repository.login(this, username, password, result -> {
+            setButtonsEnabled(true);
+            switch (result.getStatus()) {
+                case DatabaseHelper.AuthResult.SUCCESS:
                     Log.d(TAG, "User logged in successfully: " + username);
-                    navigateToWeightTracker(userId);
-                } else {
+                    startSession(result.getUserId());
+                    break;
+                case DatabaseHelper.AuthResult.LEGACY_HASH:
+                    Log.w(TAG, "User logged in with legacy password record: " + username);
+                    startSession(result.getUserId());
+                    break;
+                case DatabaseHelper.AuthResult.ERROR:
                     showError("Login failed. Please try again.");
-                }
-            } else {
-                Log.w(TAG, "Authentication failed for user: " + username);
-                showError("Invalid username or password");
+                    break;
+                default:
+                    // Same message for unknown user and wrong password so usernames can't be probed
+                    Log.w(TAG, "Authentication failed for user: " + username + ", status " + result.getStatus());
+                    showError("Invalid username or password");
+                    break;
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error during login", e);
-            showError("Login failed. Please try again.");
-        }
+        });
     }
 
     /**
@@ -111,20 +184,18 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
-        try {
-            long userId = dbHelper.addUser(username, password);
+        setButtonsEnabled(false);
+        repository.addUser(this, username, password, userId -> {
+            setButtonsEnabled(true);
             if (userId != -1) {
                 Log.d(TAG, "Account created successfully for user: " + username);
                 showSuccess("Account created successfully!");
-                navigateToWeightTracker(userId);
+                startSession(userId);
             } else {
                 Log.w(TAG, "Account creation failed for user: " + username);
                 showError("Username already exists or account creation failed");
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error creating account", e);
-            showError("Account creation failed. Please try again.");
-        }
+        });
     }
 
     /**
@@ -162,8 +233,8 @@ public class MainActivity extends AppCompatActivity {
             return false;
         }
         
-        if (username.length() < 3) {
-            usernameEditText.setError("Username must be at least 3 characters");
+        if (username.length() < Validation.MIN_USERNAME_LENGTH) {
+            usernameEditText.setError("Username must be at least " + Validation.MIN_USERNAME_LENGTH + " characters");
             usernameEditText.requestFocus();
             return false;
         }
@@ -174,8 +245,8 @@ public class MainActivity extends AppCompatActivity {
             return false;
         }
         
-        if (password.length() < 6) {
-            passwordEditText.setError("Password must be at least 6 characters");
+        if (password.length() < Validation.MIN_PASSWORD_LENGTH) {
+            passwordEditText.setError("Password must be at least " + Validation.MIN_PASSWORD_LENGTH + " characters");
             passwordEditText.requestFocus();
             return false;
         }
@@ -193,6 +264,15 @@ public class MainActivity extends AppCompatActivity {
             editText.getText().toString().trim() : "";
     }
 
+    /**
+     * Prevents duplicate submissions while a request is in flight
+     * @param enabled Whether the buttons accept clicks
+     */
+    private void setButtonsEnabled(boolean enabled) {
+        loginButton.setEnabled(enabled);
+        createAccountButton.setEnabled(enabled);
+    }
+
     /**
      * Clears error messages from input fields
      */
@@ -217,6 +297,33 @@ public class MainActivity extends AppCompatActivity {
         Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
     }
 
+    /**
+     * Remembers the login so the next launch skips this screen, then
+     * opens the dashboard. A failed session write only costs the shortcut.
+     * @param userId Authenticated user ID
+     */
+    private void startSession(long userId) {
+        setButtonsEnabled(false);
+        repository.createSession(this, userId, token -> {
+            saveSessionToken(token);
+            navigateToWeightTracker(userId);
+        });
+    }
+
+    /**
+     * Stores or clears the remembered session token
+     * @param token Token to keep, or null to forget the session
+     */
+    private void saveSessionToken(String token) {
+        SharedPreferences.Editor editor = getSharedPreferences(PREFS_NAME, MODE_PRIVATE).edit();
+        if (token != null) {
+            editor.putString(PREF_SESSION_TOKEN, token);
+        } else {
+            editor.remove(PREF_SESSION_TOKEN);
+        }
+        editor.apply();
+    }
+
     /**
      * Navigates to weight tracker activity
      * @param userId User ID to pass to next activity
@@ -232,13 +339,4 @@ public class MainActivity extends AppCompatActivity {
             showError("Navigation failed. Please try again.");
         }
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        // Clean up database connection
-        if (dbHelper != null) {
-            dbHelper.close();
-        }
-    }
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import android.app.AlertDialog;
 import android.widget.ImageButton;
 import android.content.Context;
 import android.database.Cursor;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -11,19 +13,38 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 import android.widget.Toast;
 import androidx.annotation.NonNull;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.UnaryOperator;
 
 public class WeightAdapter extends RecyclerView.Adapter<WeightAdapter.WeightViewHolder> {
     private static final String TAG = "WeightAdapter";
-    private Cursor cursor;
+
+    // Row building and diffing run here, in submission order, so binding only reads arrays
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "weight-diff"));
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private Rows rows = Rows.EMPTY; // Shown rows; main thread only
+    private Rows latestRows = Rows.EMPTY; // Newest submitted rows; diff thread only
     private Context context;
-    private DatabaseHelper dbHelper;
+    private final AsyncWeightRepository repository;
+    private final LifecycleOwner lifecycleOwner;
 
     /**
      * Interface for weight update callbacks
      */
     public interface WeightUpdateListener {
-        void onWeightUpdated();
+        /**
+         * @param weightId ID of the entry that was deleted
+         */
+        void onWeightDeleted(long weightId);
     }
 
     private WeightUpdateListener updateListener;
@@ -32,49 +53,33 @@ public class WeightAdapter extends RecyclerView.Adapter<WeightAdapter.WeightView
         this.updateListener = listener;
     }
 
-    public WeightAdapter(Cursor cursor) {
-        this.cursor = cursor;
+    public WeightAdapter(AsyncWeightRepository repository, LifecycleOwner lifecycleOwner) {
+        this.repository = repository;
+        this.lifecycleOwner = lifecycleOwner;
+        setHasStableIds(true);
     }
 
     @NonNull
     @Override
     public WeightViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         this.context = parent.getContext();
-        this.dbHelper = new DatabaseHelper(context);
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_weight, parent, false);
-        return new WeightViewHolder(view);
+        WeightViewHolder holder = new WeightViewHolder(view);
+        // One listener per holder, resolved by position at click time, so binds allocate nothing
+        holder.deleteButton.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                showDeleteConfirmation(rows.ids[position]);
+            }
+        });
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull WeightViewHolder holder, int position) {
-        if (cursor != null && cursor.moveToPosition(position)) {
-            try {
-                int idIndex = cursor.getColumnIndex("id");
-                int weightIndex = cursor.getColumnIndex("weight");
-                int dateIndex = cursor.getColumnIndex("date");
-
-                if (weightIndex != -1 && dateIndex != -1 && idIndex != -1) {
-                    long id = cursor.getLong(idIndex);
-                    double weight = cursor.getDouble(weightIndex);
-                    String date = cursor.getString(dateIndex);
-                    
-                    holder.weightText.setText(String.format("%.1f lbs", weight));
-                    holder.dateText.setText(formatDate(date));
-
-                    holder.deleteButton.setOnClickListener(v -> showDeleteConfirmation(id));
-                } else {
-                    Log.w(TAG, "Column indices not found properly");
-                    showErrorInView(holder);
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error binding weight data at position: " + position, e);
-                showErrorInView(holder);
-            }
-        } else {
-            Log.w(TAG, "Cursor is null or cannot move to position: " + position);
-            showErrorInView(holder);
-        }
+        holder.weightText.setText(rows.weightLabels[position]);
+        holder.dateText.setText(rows.dateLabels[position]);
     }
 
     /**
@@ -98,80 +103,220 @@ public class WeightAdapter extends RecyclerView.Adapter<WeightAdapter.WeightView
      * Handles weight entry deletion with error handling
      */
     private void handleDelete(long weightId) {
-        try {
-            dbHelper.deleteWeight(weightId);
+        repository.deleteWeight(lifecycleOwner, weightId, ignored -> {
             showToast("Weight entry deleted");
-            
+
             if (updateListener != null) {
-                updateListener.onWeightUpdated();
+                updateListener.onWeightDeleted(weightId);
             }
-            
+
             Log.d(TAG, "Weight entry deleted successfully: " + weightId);
-        } catch (Exception e) {
-            Log.e(TAG, "Error deleting weight entry: " + weightId, e);
-            showToast("Failed to delete weight entry");
-        }
+        });
     }
 
     /**
-     * Formats date string for display
+     * Shows toast message safely
      */
-    private String formatDate(String date) {
+    private void showToast(String message) {
         try {
-            // You can enhance this to format dates differently if needed
-            return date;
+            Toast.makeText(context, message, Toast.LENGTH_SHORT).show();
         } catch (Exception e) {
-            Log.e(TAG, "Error formatting date: " + date, e);
-            return "Invalid date";
+            Log.e(TAG, "Error showing toast", e);
         }
     }
 
+    @Override
+    public int getItemCount() {
+        return rows.size;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return rows.ids[position];
+    }
+
     /**
-     * Shows error state in view holder
+     * Replaces the shown history with a freshly loaded first page. Rows that
+     * are unchanged keep their views; only inserts and removals animate.
+     * @param pageCursor First page of history; consumed and closed off the main thread
      */
-    private void showErrorInView(WeightViewHolder holder) {
-        holder.weightText.setText("Error");
-        holder.dateText.setText("Failed to load");
-        holder.deleteButton.setEnabled(false);
+    public void submitPage(Cursor pageCursor) {
+        submit(current -> Rows.fromCursor(pageCursor), null);
     }
 
     /**
-     * Shows toast message safely
+     * Appends an older page of history below the rows already shown
+     * @param pageCursor Next page of history; consumed and closed off the main thread
      */
-    private void showToast(String message) {
-        try {
-            Toast.makeText(context, message, Toast.LENGTH_SHORT).show();
-        } catch (Exception e) {
-            Log.e(TAG, "Error showing toast", e);
-        }
+    public void appendPage(Cursor pageCursor) {
+        submit(current -> current.append(Rows.fromCursor(pageCursor)), null);
     }
 
-    @Override
-    public int getItemCount() {
-        return cursor != null ? cursor.getCount() : 0;
+    /**
+     * Replaces the shown rows with a prepared snapshot
+     * @param newRows Rows to show
+     * @param onCommitted Run on the main thread once the update is applied, may be null
+     */
+    void submitRows(Rows newRows, Runnable onCommitted) {
+        submit(current -> newRows, onCommitted);
     }
 
     /**
-     * Safely swaps cursor with proper cleanup
+     * Builds the next snapshot from the newest submitted one, diffs the two
+     * on the diff thread and applies the minimal updates on the main thread.
+     * Submissions are applied in order.
      */
-    public void swapCursor(Cursor newCursor) {
-        try {
-            if (cursor != null && !cursor.isClosed()) {
-                cursor.close();
+    private void submit(UnaryOperator<Rows> update, Runnable onCommitted) {
+        DIFF_EXECUTOR.execute(() -> {
+            Rows oldRows = latestRows;
+            Rows newRows = update.apply(oldRows);
+            latestRows = newRows;
+            DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new RowsDiff(oldRows, newRows), false);
+            mainHandler.post(() -> {
+                rows = newRows;
+                diff.dispatchUpdatesTo(this);
+                if (onCommitted != null) {
+                    onCommitted.run();
+                }
+            });
+        });
+    }
+
+    /**
+     * Immutable snapshot of the list in parallel arrays with display text
+     * formatted up front, so binding a row is two array reads
+     */
+    static final class Rows {
+        static final Rows EMPTY = new Rows(new long[0], new double[0], new String[0], new String[0], 0);
+
+        final long[] ids;
+        final double[] weights;
+        final String[] weightLabels;
+        final String[] dateLabels;
+        final int size;
+
+        private Rows(long[] ids, double[] weights, String[] weightLabels, String[] dateLabels, int size) {
+            this.ids = ids;
+            this.weights = weights;
+            this.weightLabels = weightLabels;
+            this.dateLabels = dateLabels;
+            this.size = size;
+        }
+
+        /**
+         * Builds rows from entry values, formatting their labels
+         * @param ids Entry IDs
+         * @param weights Weights in lbs
+         * @param epochDays Dates as epoch days
+         */
+        static Rows of(long[] ids, double[] weights, long[] epochDays) {
+            int size = ids.length;
+            String[] weightLabels = new String[size];
+            String[] dateLabels = new String[size];
+            for (int i = 0; i < size; i++) {
+                weightLabels[i] = formatWeight(weights[i]);
+                dateLabels[i] = formatDate(epochDays[i]);
+            }
+            return new Rows(ids, weights, weightLabels, dateLabels, size);
+        }
+
+        /**
+         * Copies a page cursor into rows and closes it
+         */
+        static Rows fromCursor(Cursor pageCursor) {
+            if (pageCursor == null) {
+                return EMPTY;
+            }
+            try {
+                int idIndex = pageCursor.getColumnIndexOrThrow("id");
+                int weightIndex = pageCursor.getColumnIndexOrThrow("weight");
+                int dateIndex = pageCursor.getColumnIndexOrThrow("epoch_day");
+                int count = pageCursor.getCount();
+                long[] ids = new long[count];
+                double[] weights = new double[count];
+                long[] epochDays = new long[count];
+                for (int i = 0; pageCursor.moveToNext(); i++) {
+                    ids[i] = pageCursor.getLong(idIndex);
+                    weights[i] = pageCursor.getDouble(weightIndex);
+                    epochDays[i] = pageCursor.getLong(dateIndex);
+                }
+                return of(ids, weights, epochDays);
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading weight rows", e);
+                return EMPTY;
+            } finally {
+                pageCursor.close();
+            }
+        }
+
+        /**
+         * @return New snapshot with the given rows after these
+         */
+        Rows append(Rows more) {
+            if (more.size == 0) {
+                return this;
+            }
+            int total = size + more.size;
+            long[] newIds = Arrays.copyOf(ids, total);
+            double[] newWeights = Arrays.copyOf(weights, total);
+            String[] newWeightLabels = Arrays.copyOf(weightLabels, total);
+            String[] newDateLabels = Arrays.copyOf(dateLabels, total);
+            System.arraycopy(more.ids, 0, newIds, size, more.size);
+            System.arraycopy(more.weights, 0, newWeights, size, more.size);
+            System.arraycopy(more.weightLabels, 0, newWeightLabels, size, more.size);
+            System.arraycopy(more.dateLabels, 0, newDateLabels, size, more.size);
+            return new Rows(newIds, newWeights, newWeightLabels, newDateLabels, total);
+        }
+
+        private static String formatWeight(double weight) {
+            return String.format(Locale.getDefault(), "%.1f lbs", weight);
+        }
+
+        /**
+         * Formats an epoch-day date for display as yyyy-MM-dd
+         */
+        private static String formatDate(long epochDay) {
+            try {
+                return LocalDate.ofEpochDay(epochDay).toString();
+            } catch (Exception e) {
+                Log.e(TAG, "Error formatting date: " + epochDay, e);
+                return "Invalid date";
             }
-            cursor = newCursor;
-            notifyDataSetChanged();
-            Log.d(TAG, "Cursor swapped successfully");
-        } catch (Exception e) {
-            Log.e(TAG, "Error swapping cursor", e);
         }
     }
 
     /**
-     * Gets current cursor
+     * Rows are identified by entry id; an entry's weight and date never change once saved
      */
-    public Cursor getCursor() {
-        return cursor;
+    private static final class RowsDiff extends DiffUtil.Callback {
+        private final Rows oldRows;
+        private final Rows newRows;
+
+        RowsDiff(Rows oldRows, Rows newRows) {
+            this.oldRows = oldRows;
+            this.newRows = newRows;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldRows.size;
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newRows.size;
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return oldRows.ids[oldPosition] == newRows.ids[newPosition];
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            return oldRows.weights[oldPosition] == newRows.weights[newPosition]
+                    && oldRows.dateLabels[oldPosition].equals(newRows.dateLabels[newPosition]);
+        }
     }
 
     /**
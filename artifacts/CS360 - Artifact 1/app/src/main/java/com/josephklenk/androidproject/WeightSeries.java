@@ -0,0 +1,192 @@
+package com.josephklenk.androidproject;
+
+import java.util.Arrays;
+
+/**
+ * A user's whole weight history held as parallel primitive arrays, sorted
+ * by date and then entry id (oldest first). Built for charting and stats:
+ * values are read by index without cursors or boxing, a date is found by
+ * binary search, and saves and deletes are applied in place instead of
+ * reloading. Not thread-safe; confine an instance to one thread.
+ */
+public final class WeightSeries {
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] epochDays;
+    private double[] weights;
+    private long[] ids;
+    private int size;
+
+    /**
+     * Creates an empty series
+     * @param capacity Expected number of entries
+     */
+    public WeightSeries(int capacity) {
+        int initial = Math.max(MIN_CAPACITY, capacity);
+        epochDays = new int[initial];
+        weights = new double[initial];
+        ids = new long[initial];
+    }
+
+    /**
+     * Loads a user's full history in one pass over the (user_id, epoch_day)
+     * index, sized up front from the maintained entry count
+     * @param dbHelper Database to read from; call off the main thread
+     * @param userId User ID
+     * @return Loaded series, or null on error
+     */
+    public static WeightSeries load(DatabaseHelper dbHelper, long userId) {
+        DatabaseHelper.UserStats stats = dbHelper.getUserStats(userId);
+        WeightSeries series = new WeightSeries(stats != null ? stats.getEntryCount() : 0);
+        // Rows arrive in (epoch_day, id) order, so each one appends
+        int visited = dbHelper.forEachWeightBetween(userId, 0, Long.MAX_VALUE,
+                (id, weight, epochDay) -> series.insertAt(series.size, id, weight, epochDay));
+        return visited < 0 ? null : series;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getEpochDay(int index) {
+        checkIndex(index);
+        return epochDays[index];
+    }
+
+    public double getWeight(int index) {
+        checkIndex(index);
+        return weights[index];
+    }
+
+    public long getId(int index) {
+        checkIndex(index);
+        return ids[index];
+    }
+
+    /**
+     * Adds a newly saved entry in date order. Entries for today or later
+     * (the usual case) land at the end in amortized constant time.
+     * @param id Entry ID
+     * @param weight Weight value
+     * @param epochDay Date as days since 1970-01-01
+     */
+    public void add(long id, double weight, long epochDay) {
+        // After any existing entries on the same day, since ids only grow
+        insertAt(upperBound(epochDay), id, weight, epochDay);
+    }
+
+    /**
+     * Removes a deleted entry
+     * @param id Entry ID
+     * @return true if the entry was present
+     */
+    public boolean remove(long id) {
+        // Ids are not in date order; deletes usually hit recent rows, so scan from the end
+        for (int i = size - 1; i >= 0; i--) {
+            if (ids[i] == id) {
+                int tail = size - i - 1;
+                System.arraycopy(epochDays, i + 1, epochDays, i, tail);
+                System.arraycopy(weights, i + 1, weights, i, tail);
+                System.arraycopy(ids, i + 1, ids, i, tail);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Change from a past date to the newest entry, e.g. the weekly trend.
+     * The baseline is the last entry on or before the date, or the oldest
+     * entry if every entry is newer.
+     * @param epochDay Baseline date as days since 1970-01-01
+     * @return Newest weight minus baseline weight, or NaN with fewer than two entries
+     */
+    public double changeSince(long epochDay) {
+        if (size < 2) {
+            return Double.NaN;
+        }
+        int baseline = Math.max(0, upperBound(epochDay) - 1);
+        if (baseline == size - 1) {
+            // Nothing was logged after the baseline; measure against the entry before it
+            baseline--;
+        }
+        return weights[size - 1] - weights[baseline];
+    }
+
+    /**
+     * Finds the first entry on a given date
+     * @param epochDay Date as days since 1970-01-01
+     * @return Index of the first entry on that day, or (-(insertion point) - 1)
+     *         if there is none, following Arrays.binarySearch
+     */
+    public int indexOf(long epochDay) {
+        int index = lowerBound(epochDay);
+        return index < size && epochDays[index] == epochDay ? index : -index - 1;
+    }
+
+    /**
+     * @param epochDay Date as days since 1970-01-01
+     * @return Index of the first entry on or after the date; size() if none
+     */
+    public int lowerBound(long epochDay) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDays[mid] < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param epochDay Date as days since 1970-01-01
+     * @return Index of the first entry after the date; size() if none
+     */
+    public int upperBound(long epochDay) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDays[mid] <= epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void insertAt(int index, long id, double weight, long epochDay) {
+        if (size == ids.length) {
+            int capacity = size + (size >> 1);
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+        int tail = size - index;
+        if (tail > 0) {
+            System.arraycopy(epochDays, index, epochDays, index + 1, tail);
+            System.arraycopy(weights, index, weights, index + 1, tail);
+            System.arraycopy(ids, index, ids, index + 1, tail);
+        }
+        epochDays[index] = (int) epochDay; // Valid epoch days end at 9999-12-31, well inside int range
+        weights[index] = weight;
+        ids[index] = id;
+        size++;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+    }
+}
\ No newline at end of file
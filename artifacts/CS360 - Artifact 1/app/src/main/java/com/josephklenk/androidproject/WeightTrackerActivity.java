@@ -2,6 +2,7 @@ package com.josephklenk.androidproject;
 
 import com.google.android.material.button.MaterialButton;
 import android.app.AlertDialog;
+import android.content.Intent;
 import android.content.SharedPreferences;
 import android.database.Cursor;
 import android.os.Bundle;
@@ -13,19 +14,22 @@ import android.widget.TextView;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.core.widget.NestedScrollView;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import com.josephklenk.androidproject.core.Validation;
+import com.josephklenk.androidproject.core.Weights;
+import java.time.LocalDate;
 import java.util.Locale;
+import java.util.function.Consumer;
 
 public class WeightTrackerActivity extends AppCompatActivity {
     private static final String TAG = "WeightTrackerActivity";
     
     // Model layer
-    private DatabaseHelper dbHelper;
+    private AsyncWeightRepository repository;
     private SMSNotificationHandler smsHandler;
     
     // View components
@@ -33,13 +37,24 @@ public class WeightTrackerActivity extends AppCompatActivity {
     private WeightAdapter adapter;
     private TextView currentWeightText;
     private TextView goalWeightText;
+    private TextView weightTrendText;
     
     // Data
     private long userId;
+    private long nextPageToken = DatabaseHelper.NO_MORE_PAGES;
+    private boolean loadingPage;
+    // Bumped on every reload so a page requested against older history is dropped
+    private int historyGeneration;
+    private boolean firstFrameReported;
+    // Whole history for the trend; kept current in place on save and delete
+    private WeightSeries weightSeries;
+    private boolean loadingSeries;
+    private boolean seriesStale;
     
-    // Constants for validation
-    private static final double MIN_WEIGHT = 50.0;
-    private static final double MAX_WEIGHT = 1000.0;
+    // Start loading the next history page when this close to the bottom
+    private static final int LOAD_MORE_THRESHOLD_PX = 200;
+    // Window the dashboard trend line covers
+    private static final int TREND_DAYS = 7;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -59,7 +74,7 @@ public class WeightTrackerActivity extends AppCompatActivity {
      */
     private void initializeData() {
         try {
-            dbHelper = new DatabaseHelper(this);
+            repository = AsyncWeightRepository.getInstance(this);
             smsHandler = new SMSNotificationHandler(this);
             userId = getIntent().getLongExtra("USER_ID", -1);
             
@@ -102,11 +117,23 @@ public class WeightTrackerActivity extends AppCompatActivity {
     private void initializeViews() {
         currentWeightText = findViewById(R.id.currentWeightText);
         goalWeightText = findViewById(R.id.goalWeightText);
+        weightTrendText = findViewById(R.id.weightTrendText);
         weightHistoryRecyclerView = findViewById(R.id.weightHistoryRecyclerView);
         
         // Setup RecyclerView
         weightHistoryRecyclerView.setLayoutManager(new LinearLayoutManager(this));
 
+        // The list sits inside a NestedScrollView, so page on the outer scroll position
+        NestedScrollView scrollView = findViewById(R.id.dashboardScrollView);
+        scrollView.setOnScrollChangeListener((NestedScrollView.OnScrollChangeListener)
+                (v, scrollX, scrollY, oldScrollX, oldScrollY) -> {
+                    View content = v.getChildAt(0);
+                    if (content != null && scrollY > oldScrollY
+                            && scrollY + v.getHeight() >= content.getMeasuredHeight() - LOAD_MORE_THRESHOLD_PX) {
+                        loadNextHistoryPage();
+                    }
+                });
+
         // Setup FAB
         FloatingActionButton addWeightFab = findViewById(R.id.addWeightFab);
         addWeightFab.setOnClickListener(v -> showAddWeightDialog());
@@ -136,9 +163,8 @@ public class WeightTrackerActivity extends AppCompatActivity {
      * Sets up user interface and loads data
      */
     private void setupUserInterface() {
-        updateWeightHistory();
-        updateCurrentWeight();
-        updateGoalWeight();
+        refreshDashboard();
+        loadWeightSeries();
     }
 
     /**
@@ -170,9 +196,7 @@ public class WeightTrackerActivity extends AppCompatActivity {
 
             dialog.setOnShowListener(dialogInterface -> {
                 dialog.getButton(AlertDialog.BUTTON_POSITIVE).setOnClickListener(view -> {
-                    if (handleWeightSave(weightInput.getText().toString(), dialog)) {
-                        dialog.dismiss();
-                    }
+                    handleWeightSave(weightInput.getText().toString(), dialog);
                 });
             });
 
@@ -225,64 +249,54 @@ public class WeightTrackerActivity extends AppCompatActivity {
     /**
      * Handles weight save with validation
      * @param weightStr Weight string from input
-     * @param dialog Dialog to dismiss if successful
-     * @return true if save successful, false otherwise
+     * @param dialog Dialog to dismiss once the entry is saved
      */
-    private boolean handleWeightSave(String weightStr, AlertDialog dialog) {
+    private void handleWeightSave(String weightStr, AlertDialog dialog) {
         if (weightStr.isEmpty() || weightStr.equals("0")) {
             showError("Please enter a valid weight");
-            return false;
+            return;
         }
 
         try {
             double weight = Double.parseDouble(weightStr);
             
             // Validate weight range
-            if (weight < MIN_WEIGHT || weight > MAX_WEIGHT) {
-                showError("Weight must be between " + MIN_WEIGHT + " and " + MAX_WEIGHT + " lbs");
-                return false;
+            if (!Weights.isInEntryRange(weight)) {
+                showError("Weight must be between " + Weights.MIN_ENTRY_WEIGHT + " and "
+                        + Weights.MAX_ENTRY_WEIGHT + " lbs");
+                return;
             }
 
-            String date = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
-            long result = dbHelper.addWeight(userId, weight, date);
-
-            if (result != -1) {
-                Log.d(TAG, "Weight entry saved successfully: " + weight);
-                updateWeightHistory();
-                updateCurrentWeight();
-                checkGoalWeight(weight);
-                showSuccess("Weight recorded successfully!");
-                return true;
-            } else {
-                showError("Failed to save weight entry");
-                return false;
-            }
+            long today = LocalDate.now().toEpochDay();
+            repository.addWeight(this, userId, weight, today, result -> {
+                if (result != -1) {
+                    Log.d(TAG, "Weight entry saved successfully: " + weight);
+                    dialog.dismiss();
+                    refreshDashboard();
+                    // Same tenths-of-a-pound rounding the row was stored with, so the trend matches a reload
+                    double stored = Weights.fromStored(Weights.toStored(weight, Weights.UNIT_POUNDS));
+                    onSeriesChanged(series -> series.add(result, stored, today));
+                    checkGoalWeight(weight);
+                    showSuccess("Weight recorded successfully!");
+                } else {
+                    showError("Failed to save weight entry");
+                }
+            });
         } catch (NumberFormatException e) {
             Log.e(TAG, "Invalid weight format: " + weightStr, e);
             showError("Please enter a valid number");
-            return false;
-        } catch (Exception e) {
-            Log.e(TAG, "Error saving weight", e);
-            showError("Failed to save weight entry");
-            return false;
         }
     }
 
     /**
-     * Updates current weight display with error handling
+     * Updates current weight display
      */
-    public void updateCurrentWeight() {
-        try {
-            double currentWeight = dbHelper.getLatestWeight(userId);
-            if (currentWeight > 0) {
-                currentWeightText.setText(String.format(Locale.getDefault(), "%.1f lbs", currentWeight));
-                Log.d(TAG, "Updated current weight display: " + currentWeight);
-            } else {
-                currentWeightText.setText("No weight recorded");
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error updating current weight", e);
-            currentWeightText.setText("Error loading weight");
+    private void showCurrentWeight(double currentWeight) {
+        if (currentWeight > 0) {
+            currentWeightText.setText(String.format(Locale.getDefault(), "%.1f lbs", currentWeight));
+            Log.d(TAG, "Updated current weight display: " + currentWeight);
+        } else {
+            currentWeightText.setText("No weight recorded");
         }
     }
 
@@ -294,10 +308,12 @@ public class WeightTrackerActivity extends AppCompatActivity {
             View dialogView = LayoutInflater.from(this).inflate(R.layout.dialog_set_goal, null);
             EditText goalWeightInput = dialogView.findViewById(R.id.goalWeightInput);
 
-            double currentGoal = dbHelper.getGoalWeight(userId);
-            if (currentGoal > 0) {
-                goalWeightInput.setText(String.format(Locale.getDefault(), "%.1f", currentGoal));
-            }
+            // Prefill once the current goal arrives; the dialog opens immediately
+            repository.getGoalWeight(this, userId, currentGoal -> {
+                if (currentGoal > 0 && goalWeightInput.getText().length() == 0) {
+                    goalWeightInput.setText(String.format(Locale.getDefault(), "%.1f", currentGoal));
+                }
+            });
 
             new AlertDialog.Builder(this)
                     .setTitle("Set Goal Weight")
@@ -325,25 +341,24 @@ public class WeightTrackerActivity extends AppCompatActivity {
         try {
             double goalWeight = Double.parseDouble(weightStr);
             
-            if (goalWeight < MIN_WEIGHT || goalWeight > MAX_WEIGHT) {
-                showError("Goal weight must be between " + MIN_WEIGHT + " and " + MAX_WEIGHT + " lbs");
+            if (!Weights.isInEntryRange(goalWeight)) {
+                showError("Goal weight must be between " + Weights.MIN_ENTRY_WEIGHT + " and "
+                        + Weights.MAX_ENTRY_WEIGHT + " lbs");
                 return;
             }
 
-            long result = dbHelper.setGoalWeight(userId, goalWeight);
-            if (result != -1) {
-                updateGoalWeight();
-                showSuccess("Goal weight updated successfully!");
-                Log.d(TAG, "Goal weight set to: " + goalWeight);
-            } else {
-                showError("Failed to save goal weight");
-            }
+            repository.setGoalWeight(this, userId, goalWeight, result -> {
+                if (result != -1) {
+                    updateGoalWeight();
+                    showSuccess("Goal weight updated successfully!");
+                    Log.d(TAG, "Goal weight set to: " + goalWeight);
+                } else {
+                    showError("Failed to save goal weight");
+                }
+            });
         } catch (NumberFormatException e) {
             Log.e(TAG, "Invalid goal weight format", e);
             showError("Please enter a valid number");
-        } catch (Exception e) {
-            Log.e(TAG, "Error saving goal weight", e);
-            showError("Failed to save goal weight");
         }
     }
 
@@ -364,6 +379,7 @@ public class WeightTrackerActivity extends AppCompatActivity {
                     .setView(dialogView)
                     .setPositiveButton("Save", (dialog, which) -> handleSettingsSave(phoneNumberInput, prefs))
                     .setNegativeButton("Cancel", null)
+                    .setNeutralButton("Sign Out", (dialog, which) -> signOut())
                     .show();
         } catch (Exception e) {
             Log.e(TAG, "Error showing settings dialog", e);
@@ -371,6 +387,30 @@ public class WeightTrackerActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Forgets the remembered login on this device and revokes its session
+     * row, then returns to the login screen. The local token is cleared even
+     * if revocation fails; the row then lapses at its expiry.
+     */
+    private void signOut() {
+        SharedPreferences prefs = getSharedPreferences(MainActivity.PREFS_NAME, MODE_PRIVATE);
+        String token = prefs.getString(MainActivity.PREF_SESSION_TOKEN, null);
+        prefs.edit().remove(MainActivity.PREF_SESSION_TOKEN).apply();
+
+        // Leave only once the revoke has run; finishing first would cancel it with this activity
+        repository.revokeSession(this, token, revoked -> {
+            if (!revoked) {
+                Log.w(TAG, "Session row could not be revoked; it will expire");
+            }
+            Log.d(TAG, "Signed out user: " + userId);
+
+            Intent intent = new Intent(this, MainActivity.class);
+            intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+            startActivity(intent);
+            finish();
+        });
+    }
+
     /**
      * Handles settings save with validation
      */
@@ -379,7 +419,7 @@ public class WeightTrackerActivity extends AppCompatActivity {
             String phoneNumber = phoneNumberInput.getText().toString().trim();
             
             // Basic phone number validation
-            if (!phoneNumber.isEmpty() && !isValidPhoneNumber(phoneNumber)) {
+            if (!phoneNumber.isEmpty() && !Validation.isValidPhoneNumber(phoneNumber)) {
                 showError("Please enter a valid phone number");
                 return;
             }
@@ -401,35 +441,124 @@ public class WeightTrackerActivity extends AppCompatActivity {
     }
 
     /**
-     * Basic phone number validation
+     * Reloads the whole dashboard from a single snapshot, keeping as much
+     * history as is already loaded so a save doesn't collapse the list
+     * back to its first page
      */
-    private boolean isValidPhoneNumber(String phoneNumber) {
-        // Basic validation - adjust pattern as needed
-        return phoneNumber.matches("^[+]?[1-9]\\d{1,14}$");
+    public void refreshDashboard() {
+        int historySize = DatabaseHelper.DEFAULT_PAGE_SIZE;
+        if (adapter != null) {
+            historySize = Math.max(historySize, adapter.getItemCount());
+        }
+        repository.getDashboard(this, userId, historySize, dashboard -> {
+            if (dashboard == null) {
+                showError("Failed to load weight history");
+                return;
+            }
+
+            showWeightHistory(dashboard.getHistory());
+            showCurrentWeight(dashboard.getLatestWeight());
+            showGoalWeight(dashboard.getGoalWeight());
+
+            if (!firstFrameReported) {
+                // Marks time-to-full-display for launch metrics
+                firstFrameReported = true;
+                reportFullyDrawn();
+            }
+        });
     }
 
     /**
-     * Updates weight history with error handling
+     * Replaces weight history with freshly loaded newest entries
      */
-    public void updateWeightHistory() {
-        try {
-            Cursor cursor = dbHelper.getWeights(userId);
-            if (cursor != null) {
-                if (adapter == null) {
-                    adapter = new WeightAdapter(cursor);
-                    adapter.setUpdateListener(() -> {
-                        updateWeightHistory();
-                        updateCurrentWeight();
-                    });
-                    weightHistoryRecyclerView.setAdapter(adapter);
-                } else {
-                    adapter.swapCursor(cursor);
-                }
-                Log.d(TAG, "Weight history updated with " + cursor.getCount() + " entries");
+    private void showWeightHistory(DatabaseHelper.WeightPage page) {
+        Cursor cursor = page.getCursor();
+        historyGeneration++;
+        loadingPage = false;
+        nextPageToken = page.getNextPageToken();
+        if (adapter == null) {
+            adapter = new WeightAdapter(repository, this);
+            adapter.setUpdateListener(weightId -> {
+                refreshDashboard();
+                onSeriesChanged(series -> series.remove(weightId));
+            });
+            weightHistoryRecyclerView.setAdapter(adapter);
+        }
+        Log.d(TAG, "Weight history updated with " + cursor.getCount() + " entries");
+        adapter.submitPage(cursor);
+    }
+
+    /**
+     * Appends the next page of older entries if there is one
+     */
+    private void loadNextHistoryPage() {
+        if (adapter == null || loadingPage || nextPageToken == DatabaseHelper.NO_MORE_PAGES) {
+            return;
+        }
+
+        loadingPage = true;
+        int generation = historyGeneration;
+        repository.getWeightsPage(this, userId, nextPageToken,
+                DatabaseHelper.DEFAULT_PAGE_SIZE, page -> {
+            if (generation != historyGeneration) {
+                // History was reloaded meanwhile; this page continues a stale list
+                if (page != null) page.getCursor().close();
+                return;
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error updating weight history", e);
-            showError("Failed to load weight history");
+            loadingPage = false;
+            if (page != null) {
+                nextPageToken = page.getNextPageToken();
+                adapter.appendPage(page.getCursor());
+            } else {
+                Log.e(TAG, "Error loading next history page");
+            }
+        });
+    }
+
+    /**
+     * Loads the full history for the trend line. A change that lands while
+     * the load is running may or may not be in it, so the load is redone.
+     */
+    private void loadWeightSeries() {
+        loadingSeries = true;
+        seriesStale = false;
+        repository.loadWeightSeries(this, userId, series -> {
+            loadingSeries = false;
+            if (seriesStale) {
+                loadWeightSeries();
+                return;
+            }
+            if (series == null) {
+                Log.e(TAG, "Error loading weight series");
+                return;
+            }
+            weightSeries = series;
+            showWeightTrend();
+        });
+    }
+
+    /**
+     * Applies a saved or deleted entry to the loaded series instead of reloading it
+     * @param change Update to apply to the series
+     */
+    private void onSeriesChanged(Consumer<WeightSeries> change) {
+        if (loadingSeries) {
+            seriesStale = true;
+        } else if (weightSeries != null) {
+            change.accept(weightSeries);
+            showWeightTrend();
+        }
+    }
+
+    /**
+     * Updates the trend line from the in-memory series
+     */
+    private void showWeightTrend() {
+        double change = weightSeries.changeSince(LocalDate.now().toEpochDay() - TREND_DAYS);
+        if (Double.isNaN(change)) {
+            weightTrendText.setText("");
+        } else {
+            weightTrendText.setText(String.format(Locale.getDefault(), "Past %d days: %+.1f lbs", TREND_DAYS, change));
         }
     }
 
@@ -437,16 +566,14 @@ public class WeightTrackerActivity extends AppCompatActivity {
      * Updates goal weight display
      */
     private void updateGoalWeight() {
-        try {
-            double goalWeight = dbHelper.getGoalWeight(userId);
-            if (goalWeight > 0) {
-                goalWeightText.setText(String.format(Locale.getDefault(), "Goal: %.1f lbs", goalWeight));
-            } else {
-                goalWeightText.setText("No goal set");
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error updating goal weight display", e);
-            goalWeightText.setText("Error loading goal");
+        repository.getGoalWeight(this, userId, this::showGoalWeight);
+    }
+
+    private void showGoalWeight(double goalWeight) {
+        if (goalWeight > 0) {
+            goalWeightText.setText(String.format(Locale.getDefault(), "Goal: %.1f lbs", goalWeight));
+        } else {
+            goalWeightText.setText("No goal set");
         }
     }
 
@@ -454,11 +581,17 @@ public class WeightTrackerActivity extends AppCompatActivity {
      * Checks if goal weight is achieved and sends notification
      */
     private void checkGoalWeight(double currentWeight) {
+        repository.getGoalWeight(this, userId, goalWeight -> notifyIfGoalReached(currentWeight, goalWeight));
+    }
+
+    /**
+     * Congratulates the user and sends the SMS if the goal has been reached
+     */
+    private void notifyIfGoalReached(double currentWeight, double goalWeight) {
         try {
-            double goalWeight = dbHelper.getGoalWeight(userId);
             Log.d(TAG, "Checking goal weight - Current: " + currentWeight + ", Goal: " + goalWeight);
 
-            if (goalWeight > 0 && Math.abs(currentWeight - goalWeight) <= 0.5) {
+            if (Weights.isGoalReached(currentWeight, goalWeight)) {
                 SharedPreferences prefs = getSharedPreferences("WeightTrackerPrefs", MODE_PRIVATE);
                 String phoneNumber = prefs.getString("phone_number", "");
 
@@ -496,19 +629,4 @@ public class WeightTrackerActivity extends AppCompatActivity {
     private void showSuccess(String message) {
         Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        try {
-            if (adapter != null && adapter.getCursor() != null) {
-                adapter.getCursor().close();
-            }
-            if (dbHelper != null) {
-                dbHelper.close();
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error during cleanup", e);
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.josephklenk.androidproject.benchmarks;
+
+import com.josephklenk.androidproject.core.PasswordHasher;
+import com.josephklenk.androidproject.jdbc.JdbcWeightRepository;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Login cost: the credential lookup plus PBKDF2 verification, and the two
+ * halves separately. Uses PasswordHasher.MIN_ITERATIONS because the count the
+ * app calibrates at runtime depends on the device.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LoginBenchmark {
+    private static final String USERNAME = "bench";
+    private static final String PASSWORD = "correct horse";
+
+    private File dir;
+    private JdbcWeightRepository repository;
+    private String salt;
+    private String hash;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        dir = Files.createTempDirectory("login-bench").toFile();
+        repository = JdbcWeightRepository.open(new File(dir, "weights.db"), PasswordHasher.MIN_ITERATIONS);
+        repository.addUser(USERNAME, PASSWORD);
+        salt = PasswordHasher.generateSalt();
+        hash = PasswordHasher.hash(PASSWORD, salt, PasswordHasher.MIN_ITERATIONS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        repository.close();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Benchmark
+    public long login() {
+        return repository.authenticate(USERNAME, PASSWORD).getUserId();
+    }
+
+    @Benchmark
+    public long loginUnknownUser() {
+        return repository.authenticate("nobody", PASSWORD).getUserId();
+    }
+
+    @Benchmark
+    public String hashPassword() {
+        return PasswordHasher.hash(PASSWORD, salt, PasswordHasher.MIN_ITERATIONS);
+    }
+
+    @Benchmark
+    public boolean verifyPassword() {
+        return PasswordHasher.verify(PASSWORD, hash, salt, PasswordHasher.MIN_ITERATIONS);
+    }
+}
\ No newline at end of file
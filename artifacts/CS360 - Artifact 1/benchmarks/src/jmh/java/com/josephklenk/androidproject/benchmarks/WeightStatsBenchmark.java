@@ -0,0 +1,70 @@
+package com.josephklenk.androidproject.benchmarks;
+
+import com.josephklenk.androidproject.core.Weights;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * In-memory stats: mean and standard deviation from the running sums kept in
+ * user_stats versus a pass over the stored values
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class WeightStatsBenchmark {
+    @Param({"365", "3650"})
+    public int entries;
+
+    private long[] stored;
+    private long sum;
+    private long sumSq;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stored = new long[entries];
+        for (int i = 0; i < entries; i++) {
+            stored[i] = Weights.toStored(180 + 10 * Math.sin(i / 60.0), Weights.UNIT_POUNDS);
+            sum += stored[i];
+            sumSq += stored[i] * stored[i];
+        }
+    }
+
+    @Benchmark
+    public double stdDevFromSums() {
+        return Weights.standardDeviation(sum, sumSq, entries);
+    }
+
+    @Benchmark
+    public double stdDevFromValues() {
+        long s = 0;
+        long sq = 0;
+        for (long value : stored) {
+            s += value;
+            sq += value * value;
+        }
+        return Weights.standardDeviation(s, sq, stored.length);
+    }
+
+    @Benchmark
+    public double meanFromValues() {
+        long s = 0;
+        for (long value : stored) {
+            s += value;
+        }
+        return Weights.mean(s, stored.length);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,161 @@
+package com.josephklenk.androidproject.benchmarks;
+
+import com.josephklenk.androidproject.core.PasswordHasher;
+import com.josephklenk.androidproject.core.WeightRepository;
+import com.josephklenk.androidproject.core.WeightSchema;
+import com.josephklenk.androidproject.core.Weights;
+import com.josephklenk.androidproject.jdbc.JdbcWeightRepository;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hot database paths against the JDBC repository: single and batched insert,
+ * latest-weight lookup, history paging and stats reads. The database is
+ * seeded with ten years of daily entries for one user.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class WeightStoreBenchmark {
+    private static final int SEEDED_DAYS = 3650;
+    private static final int PAGE_SIZE = 50;
+    private static final int BATCH_SIZE = 100;
+    private static final long FIRST_EPOCH_DAY = 16000;
+
+    private static final WeightRepository.WeightVisitor IGNORE = (id, weight, epochDay) -> { };
+
+    private File dir;
+    private JdbcWeightRepository repository;
+    private Connection raw; // Second connection for queries outside the repository API
+    private PreparedStatement scanStats;
+    private PreparedStatement trimWrites;
+    private long userId;
+    private long lastSeededId;
+    private long deepPageToken;
+    private List<WeightRepository.WeightEntry> batch;
+    private long nextEpochDay;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        dir = Files.createTempDirectory("weight-bench").toFile();
+        File file = new File(dir, "weights.db");
+        repository = JdbcWeightRepository.open(file, PasswordHasher.MIN_ITERATIONS);
+        userId = repository.addUser("bench", "password");
+
+        List<WeightRepository.WeightEntry> seed = new ArrayList<>(SEEDED_DAYS);
+        for (int i = 0; i < SEEDED_DAYS; i++) {
+            seed.add(new WeightRepository.WeightEntry(180 + 10 * Math.sin(i / 60.0), FIRST_EPOCH_DAY + i));
+        }
+        repository.addWeights(userId, seed);
+        long[] newest = new long[1];
+        repository.forEachWeightInPage(userId, WeightRepository.FIRST_PAGE, 1, (id, weight, epochDay) -> newest[0] = id);
+        lastSeededId = newest[0];
+        deepPageToken = lastSeededId - SEEDED_DAYS / 2;
+
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new WeightRepository.WeightEntry(175 + i % 10, FIRST_EPOCH_DAY + SEEDED_DAYS + i));
+        }
+        nextEpochDay = FIRST_EPOCH_DAY + SEEDED_DAYS;
+
+        raw = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        scanStats = raw.prepareStatement("SELECT COUNT(*), SUM(" + WeightSchema.KEY_WEIGHT + "), SUM("
+                + WeightSchema.KEY_WEIGHT + " * " + WeightSchema.KEY_WEIGHT + ") FROM " + WeightSchema.TABLE_WEIGHTS
+                + " WHERE " + WeightSchema.KEY_USER_ID + "=?");
+        trimWrites = raw.prepareStatement("DELETE FROM " + WeightSchema.TABLE_WEIGHTS
+                + " WHERE " + WeightSchema.KEY_USER_ID + "=? AND " + WeightSchema.KEY_ID + ">?");
+    }
+
+    /**
+     * Drops rows the write benchmarks added so every iteration reads and
+     * writes against the same table size
+     */
+    @TearDown(Level.Iteration)
+    public void trimWrites() throws SQLException {
+        trimWrites.setLong(1, userId);
+        trimWrites.setLong(2, lastSeededId);
+        trimWrites.executeUpdate();
+        nextEpochDay = FIRST_EPOCH_DAY + SEEDED_DAYS;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        raw.close();
+        repository.close();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Benchmark
+    public long insertSingle() {
+        return repository.addWeight(userId, 181.4, Weights.UNIT_POUNDS, nextEpochDay++);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int insertBatch() {
+        return repository.addWeights(userId, batch).getInsertedCount();
+    }
+
+    @Benchmark
+    public double latestWeight() {
+        return repository.getLatestWeight(userId);
+    }
+
+    @Benchmark
+    public int historyFirstPage() {
+        return repository.forEachWeightInPage(userId, WeightRepository.FIRST_PAGE, PAGE_SIZE, IGNORE);
+    }
+
+    @Benchmark
+    public int historyDeepPage() {
+        return repository.forEachWeightInPage(userId, deepPageToken, PAGE_SIZE, IGNORE);
+    }
+
+    @Benchmark
+    public double statsFromSummary() {
+        return repository.getUserStats(userId).getStdDevWeight();
+    }
+
+    /**
+     * The aggregate user_stats saves, computed from raw rows
+     */
+    @Benchmark
+    public double statsFromScan() throws SQLException {
+        scanStats.setLong(1, userId);
+        try (ResultSet rs = scanStats.executeQuery()) {
+            rs.next();
+            return Weights.standardDeviation(rs.getLong(2), rs.getLong(3), rs.getInt(1));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,160 @@
+package com.josephklenk.androidproject.core;
+
+import java.security.MessageDigest;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Arrays;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * PBKDF2 password hashing with a per-user iteration count
+ * Derivation is deliberately slow (~100 ms at the calibrated work factor)
+ * so it must never be called from the main thread
+ */
+public final class PasswordHasher {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int KEY_LENGTH_BITS = 256;
+    private static final String LEGACY_ALGORITHM = "SHA-256"; // Pre-PBKDF2 scheme, verify-only
+    private static final int SALT_LENGTH = 16;
+
+    // Work factor bounds; the floor keeps slow devices from calibrating to something trivial
+    public static final int MIN_ITERATIONS = 10_000;
+    public static final int MAX_ITERATIONS = 2_000_000;
+    public static final long DEFAULT_TARGET_MILLIS = 100;
+    public static final int LEGACY_ITERATIONS = 0; // Stored work factor of a salted SHA-256 hash
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Calibration probe - large enough to swamp timer resolution, small enough to stay quick
+    private static final int CALIBRATION_ITERATIONS = 5_000;
+    private static final int CALIBRATION_ROUNDS = 3;
+
+    private PasswordHasher() {
+    }
+
+    /**
+     * Generates a random salt for password hashing
+     * @return Base64 encoded salt string
+     */
+    public static String generateSalt() {
+        byte[] salt = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+        return Base64.getEncoder().encodeToString(salt);
+    }
+
+    /**
+     * Hashes a password with PBKDF2-HMAC-SHA256
+     * @param password Plain text password
+     * @param salt Base64 encoded salt
+     * @param iterations Work factor
+     * @return Derived key as Base64 string
+     * @throws SecurityException if the platform lacks PBKDF2
+     */
+    public static String hash(String password, String salt, int iterations) throws SecurityException {
+        char[] chars = password.toCharArray();
+        try {
+            return Base64.getEncoder().encodeToString(
+                    derive(chars, Base64.getDecoder().decode(salt), iterations));
+        } finally {
+            Arrays.fill(chars, '\0');
+        }
+    }
+
+    /**
+     * Verifies a password against a stored hash in constant time
+     * @param password Plain text password to verify
+     * @param storedHash Stored Base64 hash
+     * @param salt Salt used for the stored hash
+     * @param iterations Work factor used for the stored hash, or LEGACY_ITERATIONS
+     * @return true if the password matches
+     * @throws SecurityException if the platform lacks the hash algorithm
+     * @throws IllegalArgumentException if the stored hash, salt or work factor is malformed
+     */
+    public static boolean verify(String password, String storedHash, String salt, int iterations)
+            throws SecurityException {
+        if (iterations == LEGACY_ITERATIONS) {
+            // Constant-time compare so response time does not leak matching prefix length
+            return MessageDigest.isEqual(hashLegacy(password, salt).getBytes(StandardCharsets.UTF_8),
+                    storedHash.getBytes(StandardCharsets.UTF_8));
+        }
+        char[] chars = password.toCharArray();
+        try {
+            byte[] expected = Base64.getDecoder().decode(storedHash);
+            byte[] actual = derive(chars, Base64.getDecoder().decode(salt), iterations);
+            return MessageDigest.isEqual(expected, actual);
+        } finally {
+            Arrays.fill(chars, '\0');
+        }
+    }
+
+    /**
+     * Verifies a password against an unsalted record from before version 2,
+     * which stored the password itself, in constant time
+     * @param password Plain text password to verify
+     * @param storedPassword Stored plain text password
+     * @return true if the password matches
+     */
+    public static boolean verifyPlainText(String password, String storedPassword) {
+        return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                storedPassword.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Measures this device and returns the iteration count that takes
+     * roughly the target time per derivation, clamped to sane bounds
+     * @param targetMillis Latency budget for one derivation
+     * @return Calibrated iteration count
+     */
+    public static int calibrate(long targetMillis) {
+        char[] password = "calibration".toCharArray();
+        byte[] salt = new byte[16];
+
+        // First derivation warms up the JIT and provider lookup; take the best of the rest
+        derive(password, salt, CALIBRATION_ITERATIONS);
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = System.nanoTime();
+            derive(password, salt, CALIBRATION_ITERATIONS);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        double nanosPerIteration = Math.max(1, bestNanos) / (double) CALIBRATION_ITERATIONS;
+        long iterations = (long) (targetMillis * 1_000_000L / nanosPerIteration);
+        return (int) Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, iterations));
+    }
+
+    /**
+     * Hashes a password with the legacy single-pass salted SHA-256 scheme
+     * @param password Plain text password
+     * @param salt Salt value for hashing
+     * @return Hashed password as Base64 string
+     * @throws SecurityException if hashing fails
+     */
+    static String hashLegacy(String password, String salt) throws SecurityException {
+        try {
+            MessageDigest md = MessageDigest.getInstance(LEGACY_ALGORITHM);
+            md.update(Base64.getDecoder().decode(salt));
+            return Base64.getEncoder().encodeToString(md.digest(password.getBytes()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new SecurityException("Password hashing failed", e);
+        }
+    }
+
+    /**
+     * Runs one PBKDF2 derivation; the caller owns and clears the password array
+     */
+    public static byte[] derive(char[] password, byte[] salt, int iterations) throws SecurityException {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, KEY_LENGTH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new SecurityException("Password hashing failed", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.josephklenk.androidproject.core;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Remembered-login tokens. Only a digest of each token is stored, so a
+ * copied database cannot be used to resume someone else's session.
+ */
+public final class Sessions {
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int TOKEN_BYTES = 32;
+
+    public static final long TTL_MILLIS = 30L * 24 * 60 * 60 * 1000; // 30 days
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private Sessions() {
+    }
+
+    /**
+     * @return New URL-safe random token to hand to the device
+     */
+    public static String newToken() {
+        byte[] raw = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(raw);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Digests a session token for storage and lookup. A single SHA-256 pass
+     * is enough here because the token is 256 bits of random data.
+     * @param token Token from newToken
+     * @return Base64 digest
+     * @throws SecurityException if the platform lacks SHA-256
+     */
+    public static String hashToken(String token) throws SecurityException {
+        try {
+            MessageDigest md = MessageDigest.getInstance(HASH_ALGORITHM);
+            return Base64.getEncoder().encodeToString(md.digest(token.getBytes()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new SecurityException("Session token hashing failed", e);
+        }
+    }
+}
\ No newline at end of file
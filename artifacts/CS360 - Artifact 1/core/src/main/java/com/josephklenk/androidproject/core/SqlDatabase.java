@@ -0,0 +1,48 @@
+package com.josephklenk.androidproject.core;
+
+/**
+ * The few SQLite operations schema migrations need, so the same migration
+ * code runs on Android's SQLiteDatabase and on a JDBC connection.
+ * Implementations report failures as unchecked exceptions.
+ */
+public interface SqlDatabase {
+
+    /**
+     * Executes a statement that returns no rows
+     * @param sql Statement text
+     * @param bindArgs Values for ? placeholders: Long, Integer, Double, String or null
+     */
+    void execSQL(String sql, Object... bindArgs);
+
+    /**
+     * Runs a query
+     * @param sql Query text
+     * @param bindArgs Values for ? placeholders
+     * @return Rows to step through; the caller closes them
+     */
+    Rows query(String sql, Object... bindArgs);
+
+    /**
+     * Runs work in a transaction, committing if it returns normally and
+     * rolling back if it throws. Inside an enclosing transaction the work
+     * joins it and commits with it.
+     * @param work Statements to run atomically
+     */
+    void inTransaction(Runnable work);
+
+    /**
+     * Forward-only view of a query result
+     */
+    interface Rows extends AutoCloseable {
+        boolean next();
+
+        long getLong(int column);
+
+        String getString(int column);
+
+        boolean isNull(int column);
+
+        @Override
+        void close();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.josephklenk.androidproject.core;
+
+/**
+ * Input validation shared by the storage layer and the screens
+ */
+public final class Validation {
+    // Registration requirements
+    public static final int MIN_USERNAME_LENGTH = 3;
+    public static final int MIN_PASSWORD_LENGTH = 6;
+
+    // 9999-12-31, the last day representable as yyyy-MM-dd
+    public static final long MAX_EPOCH_DAY = 2932896;
+
+    // E.164: optional +, no leading zero, at most 15 digits
+    private static final String PHONE_NUMBER_PATTERN = "^[+]?[1-9]\\d{1,14}$";
+
+    private Validation() {
+    }
+
+    /**
+     * Validates input strings
+     * @param input Input to validate
+     * @return true if non-null and not blank
+     */
+    public static boolean isValidInput(String input) {
+        return input != null && !input.trim().isEmpty();
+    }
+
+    /**
+     * Basic phone number validation
+     * @param phoneNumber Trimmed phone number
+     * @return true if the number looks dialable
+     */
+    public static boolean isValidPhoneNumber(String phoneNumber) {
+        return phoneNumber != null && phoneNumber.matches(PHONE_NUMBER_PATTERN);
+    }
+
+    /**
+     * Validates epoch-day dates
+     * @param epochDay Days since 1970-01-01
+     * @return true if valid, false otherwise
+     */
+    public static boolean isValidEpochDay(long epochDay) {
+        return epochDay >= 0 && epochDay <= MAX_EPOCH_DAY;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,392 @@
+package com.josephklenk.androidproject.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.josephklenk.androidproject.core.WeightSchema.*;
+
+/**
+ * Versioned upgrade steps from every earlier schema to WeightSchema.VERSION,
+ * shared by the Android database and the JDBC backend.
+ * Each step commits in its own transaction together with the user_version
+ * it reaches, so a crash leaves the database at the last completed step.
+ * Steps that rewrite rows do so in id-range batches of BATCH_SIZE, one
+ * transaction per batch, and record the last id written in
+ * migration_progress; a rerun resumes after it. Nothing is ever dropped
+ * to recover from a failure: the error propagates and the data stays put.
+ */
+public final class WeightMigrations {
+    // Rows rewritten per transaction by batched steps
+    public static final int BATCH_SIZE = 5000;
+
+    // Bookkeeping for batched steps; a row exists only while its step is in progress
+    static final String TABLE_MIGRATION_PROGRESS = "migration_progress";
+    private static final String KEY_STEP = "step";
+    private static final String KEY_LAST_ID = "last_id";
+
+    // Version 1 entries whose date SQLite could not parse, set aside whole by step 4 with
+    // their original id, weight (REAL pounds, as recorded) and date text. They are kept out
+    // of weights, so stats, rollups and history never show them as real readings until a
+    // repair moves them back with a valid date. This table is never dropped.
+    public static final String TABLE_UNDATED_WEIGHTS = "undated_weights";
+    public static final String KEY_ORIGINAL_DATE = "original_date";
+
+    /**
+     * Receives progress while migrate runs, on the migrating thread
+     */
+    public interface ProgressListener {
+        /**
+         * @param version Schema version the running step upgrades to
+         * @param fraction Overall progress, 0 to 1
+         */
+        void onProgress(int version, double fraction);
+    }
+
+    /**
+     * Work over one id range (exclusive start, inclusive end) of a table
+     */
+    private interface IdRangeWork {
+        void run(long afterId, long throughId);
+    }
+
+    private WeightMigrations() {
+    }
+
+    /**
+     * Brings a database to WeightSchema.VERSION. An empty database (user
+     * version 0) gets the current schema directly. Safe to call again after
+     * a crash or failure; completed steps and batches are not repeated.
+     * If the caller already holds a transaction the steps join it instead.
+     * @param db Database to migrate
+     * @param listener Progress receiver, may be null
+     * @throws IllegalStateException if the database is newer than this code
+     */
+    public static void migrate(SqlDatabase db, ProgressListener listener) {
+        int version = userVersion(db);
+        if (version > VERSION) {
+            throw new IllegalStateException("Cannot downgrade database from version " + version + " to " + VERSION);
+        }
+        if (version == VERSION) {
+            return;
+        }
+        if (version == 0) {
+            db.inTransaction(() -> {
+                execAll(db, createStatements());
+                setVersion(db, VERSION);
+            });
+            report(listener, VERSION, 1);
+            return;
+        }
+
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_MIGRATION_PROGRESS + " ("
+                + KEY_STEP + " TEXT PRIMARY KEY,"
+                + KEY_LAST_ID + " INTEGER NOT NULL)");
+        Progress progress = new Progress(listener, version);
+        for (int target = version + 1; target <= VERSION; target++) {
+            progress.startStep(target);
+            runStep(db, target, progress);
+        }
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_MIGRATION_PROGRESS);
+        report(listener, VERSION, 1);
+    }
+
+    /**
+     * Runs a list of schema statements in order
+     * @param db Database being created, upgraded or repaired
+     * @param statements Statements from WeightSchema
+     */
+    public static void execAll(SqlDatabase db, List<String> statements) {
+        for (String sql : statements) {
+            db.execSQL(sql);
+        }
+    }
+
+    /**
+     * @return The database's user_version, 0 for a new database
+     */
+    public static int userVersion(SqlDatabase db) {
+        try (SqlDatabase.Rows rows = db.query("PRAGMA user_version")) {
+            return rows.next() ? (int) rows.getLong(0) : 0;
+        }
+    }
+
+    private static void runStep(SqlDatabase db, int target, Progress progress) {
+        switch (target) {
+            case 2:
+                hashLegacyPasswords(db, progress);
+                break;
+            case 3:
+                step(db, 3, () -> {
+                    // Step 4 rebuilds weights with the composite indexes, so only the old ones go here
+                    db.execSQL("DROP INDEX IF EXISTS idx_user_weights");
+                    db.execSQL("DROP INDEX IF EXISTS idx_weight_date");
+                });
+                break;
+            case 4:
+                rebuildWeightsWithEpochDays(db, progress);
+                break;
+            case 5:
+                // Date-range scans over a user's history
+                step(db, 5, () -> execAll(db, weightIndexes()));
+                break;
+            case 6:
+                // Incrementally maintained per-user summary. Not seeded here:
+                // step 10 rebuilds it from the converted rows.
+                step(db, 6, () -> execAll(db, userStatsSchema()));
+                break;
+            case 7:
+                // Day, week and month rollups for long-history charts, seeded by step 10
+                step(db, 7, () -> execAll(db, weightRollupSchema()));
+                break;
+            case 8:
+                // Existing SHA-256 hashes stay verifiable and move to PBKDF2 on next login
+                step(db, 8, () -> db.execSQL("ALTER TABLE " + TABLE_USERS + " ADD COLUMN "
+                        + KEY_ITERATIONS + " INTEGER NOT NULL DEFAULT " + PasswordHasher.LEGACY_ITERATIONS));
+                break;
+            case 9:
+                // Remembered logins
+                step(db, 9, () -> db.execSQL(sessionTable()));
+                break;
+            case 10:
+                migrateToFixedPointWeights(db, progress);
+                break;
+            default:
+                throw new IllegalStateException("No migration to version " + target);
+        }
+    }
+
+    /**
+     * Version 2: adds per-user salts. Version 1 stored plain text passwords;
+     * each is replaced by a salted SHA-256 hash that PasswordHasher verifies
+     * at LEGACY_ITERATIONS, and login then moves it to PBKDF2.
+     */
+    private static void hashLegacyPasswords(SqlDatabase db, Progress progress) {
+        String step = "2:" + TABLE_USERS;
+        long lastId = beginBatchedStep(db, step, () ->
+                db.execSQL("ALTER TABLE " + TABLE_USERS + " ADD COLUMN " + KEY_SALT + " TEXT DEFAULT ''"));
+
+        forEachIdRange(db, step, TABLE_USERS, lastId, progress, 0, 1, (afterId, throughId) -> {
+            List<Object[]> updates = new ArrayList<>();
+            try (SqlDatabase.Rows rows = db.query("SELECT " + KEY_ID + ", " + KEY_PASSWORD + " FROM " + TABLE_USERS
+                    + " WHERE " + KEY_ID + ">? AND " + KEY_ID + "<=?", afterId, throughId)) {
+                while (rows.next()) {
+                    String salt = PasswordHasher.generateSalt();
+                    updates.add(new Object[]{PasswordHasher.hashLegacy(rows.getString(1), salt), salt, rows.getLong(0)});
+                }
+            }
+            for (Object[] update : updates) {
+                db.execSQL("UPDATE " + TABLE_USERS + " SET " + KEY_PASSWORD + "=?, " + KEY_SALT + "=?"
+                        + " WHERE " + KEY_ID + "=?", update);
+            }
+        });
+
+        finishBatchedStep(db, 2, () -> { }, step);
+    }
+
+    /**
+     * Version 4: rebuilds weights with an integer epoch-day column in place
+     * of the yyyy-MM-dd text date, copying rows across in id-range batches.
+     * A row whose date SQLite cannot parse is not given a made-up day: it
+     * moves whole, original text included, to TABLE_UNDATED_WEIGHTS.
+     */
+    private static void rebuildWeightsWithEpochDays(SqlDatabase db, Progress progress) {
+        String step = "4:" + TABLE_WEIGHTS;
+        long lastId = beginBatchedStep(db, step, () -> {
+            db.execSQL("CREATE TABLE weights_v4 ("
+                    + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + KEY_USER_ID + " INTEGER NOT NULL,"
+                    + KEY_WEIGHT + " REAL NOT NULL,"
+                    + KEY_EPOCH_DAY + " INTEGER NOT NULL,"
+                    + "FOREIGN KEY(" + KEY_USER_ID + ") REFERENCES " + TABLE_USERS + "(" + KEY_ID + "))");
+            db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_UNDATED_WEIGHTS + " ("
+                    + KEY_ID + " INTEGER PRIMARY KEY,"
+                    + KEY_USER_ID + " INTEGER NOT NULL,"
+                    + KEY_WEIGHT + " REAL NOT NULL,"
+                    + KEY_ORIGINAL_DATE + " TEXT)");
+        });
+
+        // julianday() of 1970-01-01 is 2440587.5
+        forEachIdRange(db, step, TABLE_WEIGHTS, lastId, progress, 0, 1, (afterId, throughId) -> {
+            db.execSQL("INSERT INTO " + TABLE_UNDATED_WEIGHTS + " (" + KEY_ID + ", " + KEY_USER_ID + ", "
+                    + KEY_WEIGHT + ", " + KEY_ORIGINAL_DATE + ")"
+                    + " SELECT " + KEY_ID + ", " + KEY_USER_ID + ", " + KEY_WEIGHT + ", date FROM " + TABLE_WEIGHTS
+                    + " WHERE " + KEY_ID + ">? AND " + KEY_ID + "<=? AND julianday(date) IS NULL", afterId, throughId);
+            db.execSQL("INSERT INTO weights_v4 (" + KEY_ID + ", " + KEY_USER_ID + ", " + KEY_WEIGHT + ", " + KEY_EPOCH_DAY + ")"
+                    + " SELECT " + KEY_ID + ", " + KEY_USER_ID + ", " + KEY_WEIGHT + ","
+                    + " CAST(julianday(date) - 2440587.5 AS INTEGER)"
+                    + " FROM " + TABLE_WEIGHTS + " WHERE " + KEY_ID + ">? AND " + KEY_ID + "<=?"
+                    + " AND julianday(date) IS NOT NULL", afterId, throughId);
+        });
+
+        finishBatchedStep(db, 4, () -> {
+            db.execSQL("DROP TABLE " + TABLE_WEIGHTS);
+            db.execSQL("ALTER TABLE weights_v4 RENAME TO " + TABLE_WEIGHTS);
+            execAll(db, weightIndexes());
+        }, step);
+    }
+
+    /**
+     * Version 10: rebuilds weights and goals with integer tenth-of-a-pound
+     * values, rounding each REAL value once. Dropping the old weights table
+     * also drops its indexes and triggers, so those and the summary tables
+     * are recreated and reseeded in the new units when the copy completes.
+     */
+    private static void migrateToFixedPointWeights(SqlDatabase db, Progress progress) {
+        String weightsStep = "10:" + TABLE_WEIGHTS;
+        String goalsStep = "10:" + TABLE_GOALS;
+
+        long lastWeightId = beginBatchedStep(db, weightsStep, () -> {
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_USER_STATS);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_WEIGHT_ROLLUPS);
+            db.execSQL(weightsTable("weights_v10"));
+        });
+        forEachIdRange(db, weightsStep, TABLE_WEIGHTS, lastWeightId, progress, 0, 0.6, (afterId, throughId) ->
+                db.execSQL("INSERT INTO weights_v10 (" + KEY_ID + ", " + KEY_USER_ID + ", " + KEY_WEIGHT + ", "
+                        + KEY_UNIT + ", " + KEY_EPOCH_DAY + ")"
+                        + " SELECT " + KEY_ID + ", " + KEY_USER_ID + ", " + storedWeightSql(KEY_WEIGHT) + ", "
+                        + Weights.UNIT_POUNDS + ", " + KEY_EPOCH_DAY + " FROM " + TABLE_WEIGHTS
+                        + " WHERE " + KEY_ID + ">? AND " + KEY_ID + "<=?", afterId, throughId));
+
+        long lastGoalId = beginBatchedStep(db, goalsStep, () -> db.execSQL(goalsTable("goals_v10")));
+        forEachIdRange(db, goalsStep, TABLE_GOALS, lastGoalId, progress, 0.6, 0.7, (afterId, throughId) ->
+                db.execSQL("INSERT INTO goals_v10 (" + KEY_ID + ", " + KEY_USER_ID + ", " + KEY_GOAL_WEIGHT + ", " + KEY_UNIT + ")"
+                        + " SELECT " + KEY_ID + ", " + KEY_USER_ID + ", " + storedWeightSql(KEY_GOAL_WEIGHT) + ", "
+                        + Weights.UNIT_POUNDS + " FROM " + TABLE_GOALS
+                        + " WHERE " + KEY_ID + ">? AND " + KEY_ID + "<=?", afterId, throughId));
+
+        finishBatchedStep(db, 10, () -> {
+            db.execSQL("DROP TABLE " + TABLE_WEIGHTS);
+            db.execSQL("ALTER TABLE weights_v10 RENAME TO " + TABLE_WEIGHTS);
+            db.execSQL("DROP TABLE " + TABLE_GOALS);
+            db.execSQL("ALTER TABLE goals_v10 RENAME TO " + TABLE_GOALS);
+
+            execAll(db, weightIndexes());
+            execAll(db, userStatsSchema());
+            execAll(db, weightRollupSchema());
+            execAll(db, rebuildUserStats());
+            execAll(db, rebuildWeightRollups());
+        }, weightsStep, goalsStep);
+    }
+
+    // STEP HELPERS
+
+    /**
+     * Runs a whole step in one transaction with the version it reaches
+     */
+    private static void step(SqlDatabase db, int version, Runnable work) {
+        db.inTransaction(() -> {
+            work.run();
+            setVersion(db, version);
+        });
+    }
+
+    /**
+     * Starts a batched step, or finds where an interrupted run stopped.
+     * Preparation commits together with the step's progress row, so after a
+     * crash it has either fully happened or not at all.
+     * @param step Progress key, unique across all versions
+     * @param prepare Schema changes made before the first batch
+     * @return Last id already processed, 0 if none
+     */
+    private static long beginBatchedStep(SqlDatabase db, String step, Runnable prepare) {
+        try (SqlDatabase.Rows rows = db.query("SELECT " + KEY_LAST_ID + " FROM " + TABLE_MIGRATION_PROGRESS
+                + " WHERE " + KEY_STEP + "=?", step)) {
+            if (rows.next()) {
+                return rows.getLong(0);
+            }
+        }
+        db.inTransaction(() -> {
+            prepare.run();
+            db.execSQL("INSERT INTO " + TABLE_MIGRATION_PROGRESS + " (" + KEY_STEP + ", " + KEY_LAST_ID
+                    + ") VALUES (?, 0)", step);
+        });
+        return 0;
+    }
+
+    /**
+     * Applies work to successive ranges of up to BATCH_SIZE ids after lastId,
+     * one transaction per range, recording each range's end with its rows
+     * @param fromFraction Share of the step already complete when this starts
+     * @param toFraction Share of the step complete when this finishes
+     */
+    private static void forEachIdRange(SqlDatabase db, String step, String table, long lastId, Progress progress,
+                                       double fromFraction, double toFraction, IdRangeWork work) {
+        long total = queryLong(db, "SELECT COUNT(*) FROM " + table);
+        long done = queryLong(db, "SELECT COUNT(*) FROM " + table + " WHERE " + KEY_ID + "<=?", lastId);
+        String nextRangeEnd = "SELECT MAX(" + KEY_ID + ") FROM (SELECT " + KEY_ID + " FROM " + table
+                + " WHERE " + KEY_ID + ">? ORDER BY " + KEY_ID + " LIMIT " + BATCH_SIZE + ")";
+
+        long afterId = lastId;
+        while (true) {
+            long throughId = queryLong(db, nextRangeEnd, afterId);
+            if (throughId == -1) {
+                break;
+            }
+            long start = afterId;
+            db.inTransaction(() -> {
+                work.run(start, throughId);
+                db.execSQL("UPDATE " + TABLE_MIGRATION_PROGRESS + " SET " + KEY_LAST_ID + "=?"
+                        + " WHERE " + KEY_STEP + "=?", throughId, step);
+            });
+            afterId = throughId;
+            done = Math.min(total, done + BATCH_SIZE);
+            progress.update(fromFraction + (toFraction - fromFraction) * done / Math.max(1, total));
+        }
+    }
+
+    /**
+     * Completes a batched step: final schema changes, clearing its progress
+     * rows and recording the version, all in one transaction
+     */
+    private static void finishBatchedStep(SqlDatabase db, int version, Runnable finish, String... steps) {
+        step(db, version, () -> {
+            finish.run();
+            for (String step : steps) {
+                db.execSQL("DELETE FROM " + TABLE_MIGRATION_PROGRESS + " WHERE " + KEY_STEP + "=?", step);
+            }
+        });
+    }
+
+    private static void setVersion(SqlDatabase db, int version) {
+        db.execSQL("PRAGMA user_version=" + version);
+    }
+
+    /**
+     * @return First column of the first row, or -1 if there is no row or it is NULL
+     */
+    private static long queryLong(SqlDatabase db, String sql, Object... bindArgs) {
+        try (SqlDatabase.Rows rows = db.query(sql, bindArgs)) {
+            return rows.next() && !rows.isNull(0) ? rows.getLong(0) : -1;
+        }
+    }
+
+    private static void report(ProgressListener listener, int version, double fraction) {
+        if (listener != null) {
+            listener.onProgress(version, fraction);
+        }
+    }
+
+    /**
+     * Maps per-step progress onto the whole run, each step an equal share
+     */
+    private static final class Progress {
+        private final ProgressListener listener;
+        private final int fromVersion;
+        private int version;
+
+        Progress(ProgressListener listener, int fromVersion) {
+            this.listener = listener;
+            this.fromVersion = fromVersion;
+        }
+
+        void startStep(int version) {
+            this.version = version;
+            update(0);
+        }
+
+        void update(double stepFraction) {
+            int steps = VERSION - fromVersion;
+            report(listener, version, (version - fromVersion - 1 + stepFraction) / steps);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,389 @@
+package com.josephklenk.androidproject.core;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Storage operations for users, weight history, goals and sessions,
+ * independent of the SQLite binding underneath. Implemented by the app's
+ * DatabaseHelper and by the JDBC backend used for JVM tests and load tests;
+ * both run WeightSchema and WeightMigrations.
+ * Failures are logged and reported through return values, never thrown.
+ */
+public interface WeightRepository {
+
+    // Keyset pagination for weight history
+    int DEFAULT_PAGE_SIZE = 50;
+    long FIRST_PAGE = Long.MAX_VALUE;
+    long NO_MORE_PAGES = -1;
+
+    // USER OPERATIONS
+
+    /**
+     * Adds a new user with secure password hashing
+     * @param username User's username
+     * @param password Plain text password
+     * @return User ID if successful, -1 if failed
+     */
+    long addUser(String username, String password);
+
+    /**
+     * Verifies credentials and resolves the user ID in one lookup. Runs the
+     * password hash, so call it off any UI thread.
+     * @param username User's username
+     * @param password Plain text password
+     * @return Result carrying the user ID on success or the failure reason
+     */
+    AuthResult authenticate(String username, String password);
+
+    /**
+     * Gets user ID by username
+     * @param username Username to look up
+     * @return User ID or -1 if not found
+     */
+    long getUserId(String username);
+
+    // SESSION OPERATIONS
+
+    /**
+     * Starts a remembered session for a user who has just authenticated
+     * @param userId Authenticated user ID
+     * @return Opaque token to keep on the device, or null if it could not be stored
+     */
+    String createSession(long userId);
+
+    /**
+     * Resolves a remembered session without any password hashing
+     * @param token Token returned by createSession
+     * @return User ID, or -1 if the token is unknown or expired
+     */
+    long getSessionUserId(String token);
+
+    /**
+     * Ends a remembered session so its token no longer resolves
+     * @param token Token returned by createSession
+     * @return true if the token no longer resolves, false if the revocation failed
+     */
+    boolean revokeSession(String token);
+
+    // WEIGHT OPERATIONS
+
+    /**
+     * Adds a weight entry with validation
+     * @param userId User ID
+     * @param weight Weight value
+     * @param unit Weights.UNIT_POUNDS or Weights.UNIT_KILOGRAMS
+     * @param epochDay Date as days since 1970-01-01
+     * @return Weight entry ID if successful, -1 if failed
+     */
+    long addWeight(long userId, double weight, int unit, long epochDay);
+
+    /**
+     * Adds many weight entries in a single transaction. Invalid or rejected
+     * rows are skipped and reported by index.
+     * @param userId User ID
+     * @param entries Weight entries to insert
+     * @return Result with inserted count and indices of failed rows
+     */
+    BulkInsertResult addWeights(long userId, List<WeightEntry> entries);
+
+    /**
+     * Deletes a weight entry
+     * @param weightId Weight entry ID to delete
+     */
+    void deleteWeight(long weightId);
+
+    /**
+     * Streams one page of weight history, newest first. When the visitor
+     * sees a full page, the last id it received is the token for the next one.
+     * @param userId User ID
+     * @param pageToken FIRST_PAGE, or the last id of the previous page
+     * @param pageSize Maximum number of entries to visit
+     * @param visitor Receives each entry, weight in pounds
+     * @return Number of entries visited, or -1 on error
+     */
+    int forEachWeightInPage(long userId, long pageToken, int pageSize, WeightVisitor visitor);
+
+    /**
+     * Streams a user's weight entries within a date range, oldest first
+     * @param userId User ID
+     * @param fromEpochDay First day to include
+     * @param toEpochDay Last day to include
+     * @param visitor Receives each matching entry, weight in pounds
+     * @return Number of entries visited, or -1 on error
+     */
+    int forEachWeightBetween(long userId, long fromEpochDay, long toEpochDay, WeightVisitor visitor);
+
+    /**
+     * @param userId User ID
+     * @return Latest weight or -1 if not found
+     */
+    double getLatestWeight(long userId);
+
+    /**
+     * @param userId User ID
+     * @return Statistics, or null if the user has no entries or on error
+     */
+    UserStats getUserStats(long userId);
+
+    /**
+     * Gets aggregated weight history for charts and reports
+     * @param userId User ID
+     * @param granularity WeightSchema.ROLLUP_DAY, ROLLUP_WEEK or ROLLUP_MONTH
+     * @param fromEpochDay First day to include; the period containing it is included
+     * @param toEpochDay Last day to include
+     * @return Rollups ordered by period, empty on error
+     */
+    List<WeightRollup> getWeightRollups(long userId, int granularity, long fromEpochDay, long toEpochDay);
+
+    /**
+     * Loads the dashboard scalars and streams the first history page from
+     * one consistent snapshot
+     * @param userId User ID
+     * @param history Receives the first page, newest first
+     * @return Dashboard scalars, or null on error
+     */
+    DashboardSummary getDashboard(long userId, WeightVisitor history);
+
+    /**
+     * Repairs the per-user statistics and rollup tables from raw history
+     * @return true if the rebuild committed, false otherwise
+     */
+    boolean rebuildSummaries();
+
+    // GOAL OPERATIONS
+
+    /**
+     * Sets goal weight for a user
+     * @param userId User ID
+     * @param weight Goal weight in pounds
+     * @return Entry ID if successful, -1 if failed
+     */
+    long setGoalWeight(long userId, double weight);
+
+    /**
+     * @param userId User ID
+     * @return Goal weight or -1 if not found
+     */
+    double getGoalWeight(long userId);
+
+    /**
+     * Callback for streaming weight entries
+     */
+    interface WeightVisitor {
+        void visit(long id, double weight, long epochDay);
+    }
+
+    /**
+     * A single weight reading, in pounds, to be inserted in bulk
+     */
+    class WeightEntry {
+        private final double weight;
+        private final long epochDay;
+
+        public WeightEntry(double weight, long epochDay) {
+            this.weight = weight;
+            this.epochDay = epochDay;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        public long getEpochDay() {
+            return epochDay;
+        }
+    }
+
+    /**
+     * Scalars the dashboard shows. Weights are -1 when the user has no
+     * entries or no goal.
+     */
+    class DashboardSummary {
+        private final double latestWeight;
+        private final double goalWeight;
+        private final int entryCount;
+        private final double firstWeight;
+
+        public DashboardSummary(double latestWeight, double goalWeight, int entryCount, double firstWeight) {
+            this.latestWeight = latestWeight;
+            this.goalWeight = goalWeight;
+            this.entryCount = entryCount;
+            this.firstWeight = firstWeight;
+        }
+
+        public double getLatestWeight() {
+            return latestWeight;
+        }
+
+        public double getGoalWeight() {
+            return goalWeight;
+        }
+
+        public int getEntryCount() {
+            return entryCount;
+        }
+
+        /**
+         * @return Weight on the earliest recorded day, or -1 if none
+         */
+        public double getFirstWeight() {
+            return firstWeight;
+        }
+    }
+
+    /**
+     * Outcome of authenticate: the user ID on success, otherwise why it failed
+     */
+    class AuthResult {
+        public static final int SUCCESS = 0;
+        public static final int NO_SUCH_USER = 1;
+        public static final int BAD_PASSWORD = 2;
+        // Matched a pre-PBKDF2 record (plain text or salted SHA-256); authenticated and rehashed to PBKDF2
+        public static final int LEGACY_HASH = 3;
+        public static final int ERROR = 4; // Storage failure or a malformed stored hash
+
+        private final int status;
+        private final long userId;
+
+        public AuthResult(int status, long userId) {
+            this.status = status;
+            this.userId = userId;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * @return User ID, or -1 unless authenticated
+         */
+        public long getUserId() {
+            return userId;
+        }
+
+        public boolean isAuthenticated() {
+            return status == SUCCESS || status == LEGACY_HASH;
+        }
+    }
+
+    /**
+     * Per-user summary of weight history
+     */
+    class UserStats {
+        // All weights in stored units; converted to pounds by the getters
+        private final int entryCount;
+        private final long minWeight;
+        private final long maxWeight;
+        private final long sumWeight;
+        private final long sumSqWeight;
+        private final long latestWeight;
+
+        public UserStats(int entryCount, long minWeight, long maxWeight,
+                         long sumWeight, long sumSqWeight, long latestWeight) {
+            this.entryCount = entryCount;
+            this.minWeight = minWeight;
+            this.maxWeight = maxWeight;
+            this.sumWeight = sumWeight;
+            this.sumSqWeight = sumSqWeight;
+            this.latestWeight = latestWeight;
+        }
+
+        public int getEntryCount() {
+            return entryCount;
+        }
+
+        public double getMinWeight() {
+            return Weights.fromStored(minWeight);
+        }
+
+        public double getMaxWeight() {
+            return Weights.fromStored(maxWeight);
+        }
+
+        public double getLatestWeight() {
+            return Weights.fromStored(latestWeight);
+        }
+
+        public double getMeanWeight() {
+            return Weights.mean(sumWeight, entryCount);
+        }
+
+        /**
+         * @return Population standard deviation derived from the running sums
+         */
+        public double getStdDevWeight() {
+            return Weights.standardDeviation(sumWeight, sumSqWeight, entryCount);
+        }
+    }
+
+    /**
+     * Aggregate of a user's weight entries over one day, week or month
+     */
+    class WeightRollup {
+        private final long periodStart;
+        private final int entryCount;
+        private final long sumWeight; // Stored units
+        private final long minWeight;
+        private final long maxWeight;
+
+        public WeightRollup(long periodStart, int entryCount, long sumWeight, long minWeight, long maxWeight) {
+            this.periodStart = periodStart;
+            this.entryCount = entryCount;
+            this.sumWeight = sumWeight;
+            this.minWeight = minWeight;
+            this.maxWeight = maxWeight;
+        }
+
+        /**
+         * @return Epoch day of the first day in the period
+         */
+        public long getPeriodStart() {
+            return periodStart;
+        }
+
+        public int getEntryCount() {
+            return entryCount;
+        }
+
+        public double getAverageWeight() {
+            return Weights.mean(sumWeight, entryCount);
+        }
+
+        public double getMinWeight() {
+            return Weights.fromStored(minWeight);
+        }
+
+        public double getMaxWeight() {
+            return Weights.fromStored(maxWeight);
+        }
+    }
+
+    /**
+     * Outcome of a bulk insert
+     */
+    class BulkInsertResult {
+        private final int insertedCount;
+        private final List<Integer> failedRows;
+
+        public BulkInsertResult(int insertedCount, List<Integer> failedRows) {
+            this.insertedCount = insertedCount;
+            this.failedRows = Collections.unmodifiableList(failedRows);
+        }
+
+        public int getInsertedCount() {
+            return insertedCount;
+        }
+
+        /**
+         * @return Indices into the submitted list of rows that were not inserted
+         */
+        public List<Integer> getFailedRows() {
+            return failedRows;
+        }
+
+        public boolean isSuccessful() {
+            return failedRows.isEmpty();
+        }
+    }
+}
\ No newline at end of file
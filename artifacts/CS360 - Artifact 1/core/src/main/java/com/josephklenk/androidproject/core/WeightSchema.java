@@ -0,0 +1,426 @@
+package com.josephklenk.androidproject.core;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The weight tracker's SQLite schema and hot query shapes, shared by the
+ * Android database and the JVM stand-ins used for tests and benchmarks so
+ * both run exactly the same DDL and SQL
+ */
+public final class WeightSchema {
+    public static final int VERSION = 10; // Incremented for schema changes
+
+    // Table names
+    public static final String TABLE_USERS = "users";
+    public static final String TABLE_WEIGHTS = "weights";
+    public static final String TABLE_GOALS = "goals";
+    public static final String TABLE_USER_STATS = "user_stats";
+    public static final String TABLE_WEIGHT_ROLLUPS = "weight_rollups";
+    public static final String TABLE_SESSIONS = "sessions";
+
+    // Column names
+    public static final String KEY_ID = "id";
+    public static final String KEY_USER_ID = "user_id";
+    public static final String KEY_USERNAME = "username";
+    public static final String KEY_PASSWORD = "password";
+    public static final String KEY_SALT = "salt";
+    public static final String KEY_ITERATIONS = "iterations"; // PBKDF2 work factor; 0 = legacy salted SHA-256
+    public static final String KEY_WEIGHT = "weight"; // Integer tenths of a pound, see Weights.SCALE
+    public static final String KEY_UNIT = "unit"; // Unit the value was entered in; storage is always pounds
+    public static final String KEY_EPOCH_DAY = "epoch_day"; // Days since 1970-01-01
+    public static final String KEY_GOAL_WEIGHT = "goal_weight";
+    public static final String KEY_ENTRY_COUNT = "entry_count";
+    public static final String KEY_MIN_WEIGHT = "min_weight";
+    public static final String KEY_MAX_WEIGHT = "max_weight";
+    public static final String KEY_SUM_WEIGHT = "sum_weight";
+    public static final String KEY_SUM_SQ_WEIGHT = "sum_sq_weight";
+    public static final String KEY_LATEST_WEIGHT_ID = "latest_weight_id";
+    public static final String KEY_LATEST_WEIGHT = "latest_weight";
+    public static final String KEY_GRANULARITY = "granularity";
+    public static final String KEY_PERIOD_START = "period_start"; // Epoch day of the first day in the period
+    public static final String KEY_TOKEN_HASH = "token_hash"; // SHA-256 of the session token; the token itself is never stored
+    public static final String KEY_EXPIRES_AT = "expires_at"; // Epoch milliseconds
+
+    // Index names
+    public static final String INDEX_WEIGHTS_USER_ID = "idx_weights_user_id";
+    public static final String INDEX_WEIGHTS_USER_DAY = "idx_weights_user_day";
+
+    // Hot query shapes; public so tests and benchmarks run the exact SQL the app does
+    public static final String SQL_WEIGHTS_PAGE = "SELECT " + KEY_ID + ", " + poundsSql(KEY_WEIGHT) + " AS " + KEY_WEIGHT + ", " + KEY_EPOCH_DAY
+            + " FROM " + TABLE_WEIGHTS
+            + " WHERE " + KEY_USER_ID + "=? AND " + KEY_ID + "<?"
+            + " ORDER BY " + KEY_ID + " DESC LIMIT ?";
+    public static final String SQL_LATEST_WEIGHT = "SELECT " + KEY_LATEST_WEIGHT + " FROM " + TABLE_USER_STATS
+            + " WHERE " + KEY_USER_ID + "=?";
+    public static final String SQL_GOAL_WEIGHT = "SELECT " + KEY_GOAL_WEIGHT + " FROM " + TABLE_GOALS
+            + " WHERE " + KEY_USER_ID + "=?";
+    public static final String SQL_USER_ID = "SELECT " + KEY_ID + " FROM " + TABLE_USERS
+            + " WHERE " + KEY_USERNAME + "=?";
+    public static final String SQL_USER_CREDENTIALS = "SELECT " + KEY_ID + ", " + KEY_PASSWORD + ", " + KEY_SALT
+            + ", " + KEY_ITERATIONS + " FROM " + TABLE_USERS + " WHERE " + KEY_USERNAME + "=?";
+    public static final String SQL_INSERT_WEIGHT = "INSERT INTO " + TABLE_WEIGHTS + " ("
+            + KEY_USER_ID + ", " + KEY_WEIGHT + ", " + KEY_UNIT + ", " + KEY_EPOCH_DAY + ") VALUES (?, ?, ?, ?)";
+    public static final String SQL_SESSION_USER = "SELECT " + KEY_USER_ID + " FROM " + TABLE_SESSIONS
+            + " WHERE " + KEY_TOKEN_HASH + "=? AND " + KEY_EXPIRES_AT + ">?";
+    public static final String SQL_DELETE_SESSION = "DELETE FROM " + TABLE_SESSIONS + " WHERE " + KEY_TOKEN_HASH + "=?";
+    public static final String SQL_UPSERT_GOAL = "INSERT OR REPLACE INTO " + TABLE_GOALS + " ("
+            + KEY_USER_ID + ", " + KEY_GOAL_WEIGHT + ", " + KEY_UNIT + ") VALUES (?, ?, ?)";
+    public static final String SQL_USER_STATS = "SELECT " + KEY_ENTRY_COUNT + ", " + KEY_MIN_WEIGHT + ", "
+            + KEY_MAX_WEIGHT + ", " + KEY_SUM_WEIGHT + ", " + KEY_SUM_SQ_WEIGHT + ", " + KEY_LATEST_WEIGHT
+            + " FROM " + TABLE_USER_STATS + " WHERE " + KEY_USER_ID + "=?";
+    public static final String SQL_WEIGHT_ROLLUPS = "SELECT " + KEY_PERIOD_START + ", " + KEY_ENTRY_COUNT + ", "
+            + KEY_SUM_WEIGHT + ", " + KEY_MIN_WEIGHT + ", " + KEY_MAX_WEIGHT
+            + " FROM " + TABLE_WEIGHT_ROLLUPS
+            + " WHERE " + KEY_USER_ID + "=? AND " + KEY_GRANULARITY + "=? AND " + KEY_PERIOD_START + " BETWEEN ? AND ?"
+            + " ORDER BY " + KEY_PERIOD_START;
+    public static final String SQL_WEIGHTS_BETWEEN = "SELECT " + KEY_ID + ", " + poundsSql(KEY_WEIGHT) + " AS " + KEY_WEIGHT + ", " + KEY_EPOCH_DAY
+            + " FROM " + TABLE_WEIGHTS
+            + " WHERE " + KEY_USER_ID + "=? AND " + KEY_EPOCH_DAY + " BETWEEN ? AND ?"
+            + " ORDER BY " + KEY_EPOCH_DAY + ", " + KEY_ID;
+    // All dashboard scalars in one statement; ?1 is the user ID. Missing
+    // stats or goal rows come back as NULL via the outer joins.
+    public static final String SQL_DASHBOARD_SUMMARY = "SELECT s." + KEY_ENTRY_COUNT + ", s." + KEY_LATEST_WEIGHT
+            + ", g." + KEY_GOAL_WEIGHT + ", (SELECT " + KEY_WEIGHT + " FROM " + TABLE_WEIGHTS
+            + " WHERE " + KEY_USER_ID + "=?1 ORDER BY " + KEY_EPOCH_DAY + ", " + KEY_ID + " LIMIT 1)"
+            + " FROM (SELECT CAST(?1 AS INTEGER) AS " + KEY_USER_ID + ") u"
+            + " LEFT JOIN " + TABLE_USER_STATS + " s ON s." + KEY_USER_ID + "=u." + KEY_USER_ID
+            + " LEFT JOIN " + TABLE_GOALS + " g ON g." + KEY_USER_ID + "=u." + KEY_USER_ID;
+    // The summary row (kind 0) and the first history page (kind 1, newest
+    // first) in one statement, so both come from one snapshot without a
+    // transaction; ?1 is the user ID and ?2 the page size. Columns: kind,
+    // the four summary scalars, then id, weight in pounds and epoch_day.
+    public static final String SQL_DASHBOARD = "SELECT 0 AS kind, *, NULL AS " + KEY_ID + ", NULL AS " + KEY_WEIGHT
+            + ", NULL AS " + KEY_EPOCH_DAY + " FROM (" + SQL_DASHBOARD_SUMMARY + ")"
+            + " UNION ALL SELECT 1, NULL, NULL, NULL, NULL, " + KEY_ID + ", " + KEY_WEIGHT + ", " + KEY_EPOCH_DAY
+            + " FROM (SELECT " + KEY_ID + ", " + poundsSql(KEY_WEIGHT) + " AS " + KEY_WEIGHT + ", " + KEY_EPOCH_DAY
+            + " FROM " + TABLE_WEIGHTS + " WHERE " + KEY_USER_ID + "=?1 ORDER BY " + KEY_ID + " DESC LIMIT ?2)"
+            + " ORDER BY kind, " + KEY_ID + " DESC";
+
+    // Rollup granularities for charting long histories
+    public static final int ROLLUP_DAY = 0;
+    public static final int ROLLUP_WEEK = 1; // ISO week, starting Monday
+    public static final int ROLLUP_MONTH = 2;
+    private static final int[] ROLLUP_GRANULARITIES = {ROLLUP_DAY, ROLLUP_WEEK, ROLLUP_MONTH};
+
+    // julianday() of 1970-01-01, for converting epoch days inside SQL
+    private static final String JULIAN_EPOCH = "2440587.5";
+
+    private WeightSchema() {
+    }
+
+    /**
+     * Statements that create the current schema in an empty database
+     * @return DDL in execution order
+     */
+    public static List<String> createStatements() {
+        List<String> sql = new ArrayList<>();
+        sql.add(usersTable());
+        sql.add(weightsTable(TABLE_WEIGHTS));
+        sql.add(goalsTable(TABLE_GOALS));
+        sql.addAll(weightIndexes());
+        sql.addAll(userStatsSchema());
+        sql.addAll(weightRollupSchema());
+        sql.add(sessionTable());
+        return sql;
+    }
+
+    /**
+     * Users table with salt and work factor columns for password hashing
+     */
+    public static String usersTable() {
+        return "CREATE TABLE " + TABLE_USERS + "("
+                + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + KEY_USERNAME + " TEXT UNIQUE NOT NULL,"
+                + KEY_PASSWORD + " TEXT NOT NULL,"
+                + KEY_SALT + " TEXT NOT NULL,"
+                + KEY_ITERATIONS + " INTEGER NOT NULL DEFAULT 0" + ")";
+    }
+
+    /**
+     * Creates a weights table. Weight is integer tenths of a pound, with the
+     * unit the user entered it in kept alongside for display.
+     * @param table Table name, so migrations can build a replacement first
+     */
+    public static String weightsTable(String table) {
+        return "CREATE TABLE " + table + "("
+                + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + KEY_USER_ID + " INTEGER NOT NULL,"
+                + KEY_WEIGHT + " INTEGER NOT NULL,"
+                + KEY_UNIT + " INTEGER NOT NULL DEFAULT " + Weights.UNIT_POUNDS + ","
+                + KEY_EPOCH_DAY + " INTEGER NOT NULL,"
+                + "FOREIGN KEY(" + KEY_USER_ID + ") REFERENCES " + TABLE_USERS + "(" + KEY_ID + "))";
+    }
+
+    /**
+     * Creates a goals table, stored in the same units as weights
+     * @param table Table name, so migrations can build a replacement first
+     */
+    public static String goalsTable(String table) {
+        return "CREATE TABLE " + table + "("
+                + KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + KEY_USER_ID + " INTEGER UNIQUE NOT NULL,"
+                + KEY_GOAL_WEIGHT + " INTEGER NOT NULL,"
+                + KEY_UNIT + " INTEGER NOT NULL DEFAULT " + Weights.UNIT_POUNDS + ","
+                + "FOREIGN KEY(" + KEY_USER_ID + ") REFERENCES " + TABLE_USERS + "(" + KEY_ID + "))";
+    }
+
+    /**
+     * SQL expression converting a stored weight column to pounds, so cursors
+     * handed out by the storage layer carry the same values as its getters
+     */
+    public static String poundsSql(String column) {
+        return "(" + column + " / " + Weights.SCALE + ".0)";
+    }
+
+    /**
+     * SQL expression converting a legacy REAL pounds column to stored units
+     */
+    public static String storedWeightSql(String column) {
+        return "CAST(ROUND(" + column + " * " + Weights.SCALE + ") AS INTEGER)";
+    }
+
+    /**
+     * Creates the session table. Rows are keyed by the token's hash so a
+     * resume is a single primary-key probe, and a copy of the database
+     * does not hand out working tokens.
+     */
+    public static String sessionTable() {
+        return "CREATE TABLE IF NOT EXISTS " + TABLE_SESSIONS + "("
+                + KEY_TOKEN_HASH + " TEXT PRIMARY KEY,"
+                + KEY_USER_ID + " INTEGER NOT NULL,"
+                + KEY_EXPIRES_AT + " INTEGER NOT NULL,"
+                + "FOREIGN KEY(" + KEY_USER_ID + ") REFERENCES " + TABLE_USERS + "(" + KEY_ID + ")) WITHOUT ROWID";
+    }
+
+    /**
+     * Creates the indexes used by per-user weight queries. History pages and
+     * the latest-weight lookup filter on user_id and walk id backwards, so a
+     * (user_id, id) index that also carries weight and epoch day answers them
+     * without a sort step or a lookup into the table. Date-range queries
+     * get a matching (user_id, epoch_day, id) index for the same reason.
+     */
+    public static List<String> weightIndexes() {
+        List<String> sql = new ArrayList<>();
+        sql.add("CREATE INDEX IF NOT EXISTS " + INDEX_WEIGHTS_USER_ID + " ON " + TABLE_WEIGHTS
+                + "(" + KEY_USER_ID + ", " + KEY_ID + ", " + KEY_WEIGHT + ", " + KEY_EPOCH_DAY + ")");
+        sql.add("CREATE INDEX IF NOT EXISTS " + INDEX_WEIGHTS_USER_DAY + " ON " + TABLE_WEIGHTS
+                + "(" + KEY_USER_ID + ", " + KEY_EPOCH_DAY + ", " + KEY_ID + ", " + KEY_WEIGHT + ")");
+        return sql;
+    }
+
+    /**
+     * Creates the user_stats summary table and the triggers that keep it in
+     * step with weights. The triggers run inside the same statement as the
+     * insert or delete, so every write path (including bulk inserts) keeps
+     * the summary consistent without extra round trips. Min, max and latest
+     * are only recomputed when the deleted row was the current extreme.
+     * Values are in stored units, so the running sums never drift.
+     */
+    public static List<String> userStatsSchema() {
+        List<String> sql = new ArrayList<>();
+        sql.add("CREATE TABLE IF NOT EXISTS " + TABLE_USER_STATS + "("
+                + KEY_USER_ID + " INTEGER PRIMARY KEY,"
+                + KEY_ENTRY_COUNT + " INTEGER NOT NULL,"
+                + KEY_MIN_WEIGHT + " INTEGER,"
+                + KEY_MAX_WEIGHT + " INTEGER,"
+                + KEY_SUM_WEIGHT + " INTEGER NOT NULL,"
+                + KEY_SUM_SQ_WEIGHT + " INTEGER NOT NULL,"
+                + KEY_LATEST_WEIGHT_ID + " INTEGER,"
+                + KEY_LATEST_WEIGHT + " INTEGER,"
+                + "FOREIGN KEY(" + KEY_USER_ID + ") REFERENCES " + TABLE_USERS + "(" + KEY_ID + "))");
+
+        sql.add("CREATE TRIGGER IF NOT EXISTS trg_weights_stats_insert AFTER INSERT ON " + TABLE_WEIGHTS
+                + " BEGIN"
+                + " INSERT OR IGNORE INTO " + TABLE_USER_STATS + " (" + KEY_USER_ID + ", " + KEY_ENTRY_COUNT + ", "
+                + KEY_MIN_WEIGHT + ", " + KEY_MAX_WEIGHT + ", " + KEY_SUM_WEIGHT + ", " + KEY_SUM_SQ_WEIGHT + ", "
+                + KEY_LATEST_WEIGHT_ID + ", " + KEY_LATEST_WEIGHT + ")"
+                + " VALUES (NEW." + KEY_USER_ID + ", 0, NEW." + KEY_WEIGHT + ", NEW." + KEY_WEIGHT + ", 0, 0, NEW."
+                + KEY_ID + ", NEW." + KEY_WEIGHT + ");"
+                + " UPDATE " + TABLE_USER_STATS + " SET "
+                + KEY_ENTRY_COUNT + " = " + KEY_ENTRY_COUNT + " + 1, "
+                + KEY_MIN_WEIGHT + " = MIN(" + KEY_MIN_WEIGHT + ", NEW." + KEY_WEIGHT + "), "
+                + KEY_MAX_WEIGHT + " = MAX(" + KEY_MAX_WEIGHT + ", NEW." + KEY_WEIGHT + "), "
+                + KEY_SUM_WEIGHT + " = " + KEY_SUM_WEIGHT + " + NEW." + KEY_WEIGHT + ", "
+                + KEY_SUM_SQ_WEIGHT + " = " + KEY_SUM_SQ_WEIGHT + " + NEW." + KEY_WEIGHT + " * NEW." + KEY_WEIGHT + ", "
+                + KEY_LATEST_WEIGHT + " = CASE WHEN NEW." + KEY_ID + " >= " + KEY_LATEST_WEIGHT_ID
+                + " THEN NEW." + KEY_WEIGHT + " ELSE " + KEY_LATEST_WEIGHT + " END, "
+                + KEY_LATEST_WEIGHT_ID + " = MAX(" + KEY_LATEST_WEIGHT_ID + ", NEW." + KEY_ID + ")"
+                + " WHERE " + KEY_USER_ID + " = NEW." + KEY_USER_ID + ";"
+                + " END");
+
+        String latestOf = " FROM " + TABLE_WEIGHTS + " WHERE " + KEY_USER_ID + " = OLD." + KEY_USER_ID
+                + " ORDER BY " + KEY_ID + " DESC LIMIT 1";
+        sql.add("CREATE TRIGGER IF NOT EXISTS trg_weights_stats_delete AFTER DELETE ON " + TABLE_WEIGHTS
+                + " BEGIN"
+                + " UPDATE " + TABLE_USER_STATS + " SET "
+                + KEY_ENTRY_COUNT + " = " + KEY_ENTRY_COUNT + " - 1, "
+                + KEY_SUM_WEIGHT + " = " + KEY_SUM_WEIGHT + " - OLD." + KEY_WEIGHT + ", "
+                + KEY_SUM_SQ_WEIGHT + " = " + KEY_SUM_SQ_WEIGHT + " - OLD." + KEY_WEIGHT + " * OLD." + KEY_WEIGHT + ", "
+                + KEY_MIN_WEIGHT + " = CASE WHEN OLD." + KEY_WEIGHT + " <= " + KEY_MIN_WEIGHT
+                + " THEN (SELECT MIN(" + KEY_WEIGHT + ") FROM " + TABLE_WEIGHTS + " WHERE " + KEY_USER_ID + " = OLD." + KEY_USER_ID + ")"
+                + " ELSE " + KEY_MIN_WEIGHT + " END, "
+                + KEY_MAX_WEIGHT + " = CASE WHEN OLD." + KEY_WEIGHT + " >= " + KEY_MAX_WEIGHT
+                + " THEN (SELECT MAX(" + KEY_WEIGHT + ") FROM " + TABLE_WEIGHTS + " WHERE " + KEY_USER_ID + " = OLD." + KEY_USER_ID + ")"
+                + " ELSE " + KEY_MAX_WEIGHT + " END, "
+                + KEY_LATEST_WEIGHT + " = CASE WHEN OLD." + KEY_ID + " = " + KEY_LATEST_WEIGHT_ID
+                + " THEN (SELECT " + KEY_WEIGHT + latestOf + ") ELSE " + KEY_LATEST_WEIGHT + " END, "
+                + KEY_LATEST_WEIGHT_ID + " = CASE WHEN OLD." + KEY_ID + " = " + KEY_LATEST_WEIGHT_ID
+                + " THEN (SELECT " + KEY_ID + latestOf + ") ELSE " + KEY_LATEST_WEIGHT_ID + " END"
+                + " WHERE " + KEY_USER_ID + " = OLD." + KEY_USER_ID + ";"
+                + " DELETE FROM " + TABLE_USER_STATS + " WHERE " + KEY_USER_ID + " = OLD." + KEY_USER_ID
+                + " AND " + KEY_ENTRY_COUNT + " <= 0;"
+                + " END");
+        return sql;
+    }
+
+    /**
+     * Recomputes user_stats from the weights table in one pass
+     */
+    public static List<String> rebuildUserStats() {
+        List<String> sql = new ArrayList<>();
+        sql.add("DELETE FROM " + TABLE_USER_STATS);
+        sql.add("INSERT INTO " + TABLE_USER_STATS + " (" + KEY_USER_ID + ", " + KEY_ENTRY_COUNT + ", "
+                + KEY_MIN_WEIGHT + ", " + KEY_MAX_WEIGHT + ", " + KEY_SUM_WEIGHT + ", " + KEY_SUM_SQ_WEIGHT + ", "
+                + KEY_LATEST_WEIGHT_ID + ")"
+                + " SELECT " + KEY_USER_ID + ", COUNT(*), MIN(" + KEY_WEIGHT + "), MAX(" + KEY_WEIGHT + "), SUM("
+                + KEY_WEIGHT + "), SUM(" + KEY_WEIGHT + " * " + KEY_WEIGHT + "), MAX(" + KEY_ID + ")"
+                + " FROM " + TABLE_WEIGHTS + " GROUP BY " + KEY_USER_ID);
+        sql.add("UPDATE " + TABLE_USER_STATS + " SET " + KEY_LATEST_WEIGHT + " = (SELECT " + KEY_WEIGHT
+                + " FROM " + TABLE_WEIGHTS + " WHERE " + KEY_ID + " = " + TABLE_USER_STATS + "." + KEY_LATEST_WEIGHT_ID + ")");
+        return sql;
+    }
+
+    /**
+     * SQL expression for the first epoch day of the period containing a day
+     * @param granularity ROLLUP_DAY, ROLLUP_WEEK or ROLLUP_MONTH
+     * @param day SQL expression yielding an epoch day
+     */
+    private static String periodStartSql(int granularity, String day) {
+        switch (granularity) {
+            case ROLLUP_WEEK:
+                // 1970-01-01 was a Thursday, so (day + 3) % 7 is days since Monday
+                return "(" + day + " - ((" + day + " + 3) % 7))";
+            case ROLLUP_MONTH:
+                return "CAST(julianday(date(" + day + " + " + JULIAN_EPOCH + ", 'start of month')) - "
+                        + JULIAN_EPOCH + " AS INTEGER)";
+            default:
+                return "(" + day + ")";
+        }
+    }
+
+    /**
+     * Java counterpart of periodStartSql for a single epoch day
+     */
+    public static long periodStart(int granularity, long epochDay) {
+        switch (granularity) {
+            case ROLLUP_WEEK:
+                return epochDay - Math.floorMod(epochDay + 3, 7);
+            case ROLLUP_MONTH:
+                return LocalDate.ofEpochDay(epochDay).withDayOfMonth(1).toEpochDay();
+            default:
+                return epochDay;
+        }
+    }
+
+    /**
+     * SQL expression for the last epoch day of the period containing a day
+     * @param granularity ROLLUP_DAY, ROLLUP_WEEK or ROLLUP_MONTH
+     * @param day SQL expression yielding an epoch day
+     */
+    private static String periodEndSql(int granularity, String day) {
+        switch (granularity) {
+            case ROLLUP_WEEK:
+                return "(" + periodStartSql(ROLLUP_WEEK, day) + " + 6)";
+            case ROLLUP_MONTH:
+                return "CAST(julianday(date(" + day + " + " + JULIAN_EPOCH
+                        + ", 'start of month', '+1 month', '-1 day')) - " + JULIAN_EPOCH + " AS INTEGER)";
+            default:
+                return "(" + day + ")";
+        }
+    }
+
+    /**
+     * Creates the weight_rollups table and one insert and one delete trigger
+     * per granularity. Each rollup row keeps count, sum, min and max for a
+     * user's day, ISO week or month, so a multi-year chart reads a few
+     * hundred rollup rows instead of every raw entry.
+     */
+    public static List<String> weightRollupSchema() {
+        List<String> sql = new ArrayList<>();
+        sql.add("CREATE TABLE IF NOT EXISTS " + TABLE_WEIGHT_ROLLUPS + "("
+                + KEY_USER_ID + " INTEGER NOT NULL,"
+                + KEY_GRANULARITY + " INTEGER NOT NULL,"
+                + KEY_PERIOD_START + " INTEGER NOT NULL,"
+                + KEY_ENTRY_COUNT + " INTEGER NOT NULL,"
+                + KEY_SUM_WEIGHT + " INTEGER NOT NULL,"
+                + KEY_MIN_WEIGHT + " INTEGER,"
+                + KEY_MAX_WEIGHT + " INTEGER,"
+                + "PRIMARY KEY(" + KEY_USER_ID + ", " + KEY_GRANULARITY + ", " + KEY_PERIOD_START + ")"
+                + ") WITHOUT ROWID");
+
+        for (int granularity : ROLLUP_GRANULARITIES) {
+            String newStart = periodStartSql(granularity, "NEW." + KEY_EPOCH_DAY);
+            String newKey = " WHERE " + KEY_USER_ID + " = NEW." + KEY_USER_ID
+                    + " AND " + KEY_GRANULARITY + " = " + granularity
+                    + " AND " + KEY_PERIOD_START + " = " + newStart;
+            sql.add("CREATE TRIGGER IF NOT EXISTS trg_weights_rollup_" + granularity + "_insert"
+                    + " AFTER INSERT ON " + TABLE_WEIGHTS
+                    + " BEGIN"
+                    + " INSERT OR IGNORE INTO " + TABLE_WEIGHT_ROLLUPS + " (" + KEY_USER_ID + ", " + KEY_GRANULARITY + ", "
+                    + KEY_PERIOD_START + ", " + KEY_ENTRY_COUNT + ", " + KEY_SUM_WEIGHT + ", " + KEY_MIN_WEIGHT + ", "
+                    + KEY_MAX_WEIGHT + ")"
+                    + " VALUES (NEW." + KEY_USER_ID + ", " + granularity + ", " + newStart + ", 0, 0, NEW."
+                    + KEY_WEIGHT + ", NEW." + KEY_WEIGHT + ");"
+                    + " UPDATE " + TABLE_WEIGHT_ROLLUPS + " SET "
+                    + KEY_ENTRY_COUNT + " = " + KEY_ENTRY_COUNT + " + 1, "
+                    + KEY_SUM_WEIGHT + " = " + KEY_SUM_WEIGHT + " + NEW." + KEY_WEIGHT + ", "
+                    + KEY_MIN_WEIGHT + " = MIN(" + KEY_MIN_WEIGHT + ", NEW." + KEY_WEIGHT + "), "
+                    + KEY_MAX_WEIGHT + " = MAX(" + KEY_MAX_WEIGHT + ", NEW." + KEY_WEIGHT + ")"
+                    + newKey + ";"
+                    + " END");
+
+            String oldStart = periodStartSql(granularity, "OLD." + KEY_EPOCH_DAY);
+            String oldKey = " WHERE " + KEY_USER_ID + " = OLD." + KEY_USER_ID
+                    + " AND " + KEY_GRANULARITY + " = " + granularity
+                    + " AND " + KEY_PERIOD_START + " = " + oldStart;
+            // Extremes are recomputed from an index range scan over just the affected period
+            String periodRows = " FROM " + TABLE_WEIGHTS + " WHERE " + KEY_USER_ID + " = OLD." + KEY_USER_ID
+                    + " AND " + KEY_EPOCH_DAY + " BETWEEN " + oldStart
+                    + " AND " + periodEndSql(granularity, "OLD." + KEY_EPOCH_DAY);
+            sql.add("CREATE TRIGGER IF NOT EXISTS trg_weights_rollup_" + granularity + "_delete"
+                    + " AFTER DELETE ON " + TABLE_WEIGHTS
+                    + " BEGIN"
+                    + " UPDATE " + TABLE_WEIGHT_ROLLUPS + " SET "
+                    + KEY_ENTRY_COUNT + " = " + KEY_ENTRY_COUNT + " - 1, "
+                    + KEY_SUM_WEIGHT + " = " + KEY_SUM_WEIGHT + " - OLD." + KEY_WEIGHT + ", "
+                    + KEY_MIN_WEIGHT + " = CASE WHEN OLD." + KEY_WEIGHT + " <= " + KEY_MIN_WEIGHT
+                    + " THEN (SELECT MIN(" + KEY_WEIGHT + ")" + periodRows + ") ELSE " + KEY_MIN_WEIGHT + " END, "
+                    + KEY_MAX_WEIGHT + " = CASE WHEN OLD." + KEY_WEIGHT + " >= " + KEY_MAX_WEIGHT
+                    + " THEN (SELECT MAX(" + KEY_WEIGHT + ")" + periodRows + ") ELSE " + KEY_MAX_WEIGHT + " END"
+                    + oldKey + ";"
+                    + " DELETE FROM " + TABLE_WEIGHT_ROLLUPS + oldKey + " AND " + KEY_ENTRY_COUNT + " <= 0;"
+                    + " END");
+        }
+        return sql;
+    }
+
+    /**
+     * Recomputes every rollup granularity from the weights table
+     */
+    public static List<String> rebuildWeightRollups() {
+        List<String> sql = new ArrayList<>();
+        sql.add("DELETE FROM " + TABLE_WEIGHT_ROLLUPS);
+        for (int granularity : ROLLUP_GRANULARITIES) {
+            String start = periodStartSql(granularity, KEY_EPOCH_DAY);
+            sql.add("INSERT INTO " + TABLE_WEIGHT_ROLLUPS + " (" + KEY_USER_ID + ", " + KEY_GRANULARITY + ", "
+                    + KEY_PERIOD_START + ", " + KEY_ENTRY_COUNT + ", " + KEY_SUM_WEIGHT + ", " + KEY_MIN_WEIGHT + ", "
+                    + KEY_MAX_WEIGHT + ")"
+                    + " SELECT " + KEY_USER_ID + ", " + granularity + ", " + start + ", COUNT(*), SUM(" + KEY_WEIGHT
+                    + "), MIN(" + KEY_WEIGHT + "), MAX(" + KEY_WEIGHT + ")"
+                    + " FROM " + TABLE_WEIGHTS + " GROUP BY " + KEY_USER_ID + ", " + start);
+        }
+        return sql;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.josephklenk.androidproject.core;
+
+/**
+ * Weight units, fixed-point conversion and the goal rule
+ * Weights are stored as integer tenths of a pound, the precision the UI
+ * shows, so sums and comparisons in stored units are exact
+ */
+public final class Weights {
+    // Units accepted at the storage boundary
+    public static final int UNIT_POUNDS = 0;
+    public static final int UNIT_KILOGRAMS = 1;
+
+    // Stored units per pound
+    public static final int SCALE = 10;
+
+    // Entry range offered in the UI, in pounds
+    public static final double MIN_ENTRY_WEIGHT = 50.0;
+    public static final double MAX_ENTRY_WEIGHT = 1000.0;
+
+    private static final double POUNDS_PER_KILOGRAM = 1 / 0.45359237;
+    private static final long MAX_STORED_WEIGHT = (long) MAX_ENTRY_WEIGHT * SCALE; // Reasonable weight range
+    private static final long GOAL_TOLERANCE = SCALE / 2; // Within half a pound counts as reaching the goal
+
+    private Weights() {
+    }
+
+    /**
+     * Converts a weight to stored units, rounding to the nearest tenth of a pound
+     * @param weight Weight value
+     * @param unit UNIT_POUNDS or UNIT_KILOGRAMS
+     * @return Tenths of a pound, or 0 (invalid) for an unknown unit or NaN
+     */
+    public static long toStored(double weight, int unit) {
+        switch (unit) {
+            case UNIT_POUNDS:
+                return Math.round(weight * SCALE);
+            case UNIT_KILOGRAMS:
+                return Math.round(weight * POUNDS_PER_KILOGRAM * SCALE);
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * @param stored Weight in tenths of a pound
+     * @return Weight in pounds
+     */
+    public static double fromStored(long stored) {
+        return (double) stored / SCALE;
+    }
+
+    /**
+     * Validates weight values after conversion, so a value that rounds to
+     * zero tenths is rejected along with NaN and out-of-range input
+     * @param stored Weight in stored units
+     * @return true if valid, false otherwise
+     */
+    public static boolean isValidStored(long stored) {
+        return stored > 0 && stored <= MAX_STORED_WEIGHT;
+    }
+
+    /**
+     * Checks a value typed into the entry or goal dialog
+     * @param pounds Weight in pounds
+     * @return true if inside MIN_ENTRY_WEIGHT..MAX_ENTRY_WEIGHT
+     */
+    public static boolean isInEntryRange(double pounds) {
+        return pounds >= MIN_ENTRY_WEIGHT && pounds <= MAX_ENTRY_WEIGHT;
+    }
+
+    /**
+     * Applies the +/-0.5 lb goal rule. Both values are compared in stored
+     * units so a boundary case such as 170.5 against 170.0 does not depend
+     * on floating-point rounding.
+     * @param currentPounds Weight just recorded
+     * @param goalPounds Goal weight, or a value <= 0 if none is set
+     * @return true if a goal is set and the weight is within half a pound of it
+     */
+    public static boolean isGoalReached(double currentPounds, double goalPounds) {
+        if (goalPounds <= 0) {
+            return false;
+        }
+        long difference = toStored(currentPounds, UNIT_POUNDS) - toStored(goalPounds, UNIT_POUNDS);
+        return Math.abs(difference) <= GOAL_TOLERANCE;
+    }
+
+    /**
+     * @param sum Sum of weights in stored units
+     * @param count Number of weights summed
+     * @return Mean weight in pounds, or 0 for no entries
+     */
+    public static double mean(long sum, int count) {
+        return count > 0 ? fromStored(sum) / count : 0;
+    }
+
+    /**
+     * Population standard deviation from running sums
+     * @param sum Sum of weights in stored units
+     * @param sumOfSquares Sum of squared weights in stored units
+     * @param count Number of weights summed
+     * @return Standard deviation in pounds, or 0 for no entries
+     */
+    public static double standardDeviation(long sum, long sumOfSquares, int count) {
+        if (count == 0) {
+            return 0;
+        }
+        double mean = (double) sum / count;
+        double variance = Math.max(0, (double) sumOfSquares / count - mean * mean);
+        return Math.sqrt(variance) / SCALE;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.josephklenk.androidproject.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PBKDF2 and legacy password verification.
+ */
+public class PasswordHasherTest {
+
+    @Test
+    public void hashVerifiesOnlyTheOriginalPassword() {
+        String salt = PasswordHasher.generateSalt();
+        String hash = PasswordHasher.hash("password1", salt, PasswordHasher.MIN_ITERATIONS);
+
+        assertTrue(PasswordHasher.verify("password1", hash, salt, PasswordHasher.MIN_ITERATIONS));
+        assertFalse(PasswordHasher.verify("password2", hash, salt, PasswordHasher.MIN_ITERATIONS));
+        // The work factor is part of the hash
+        assertFalse(PasswordHasher.verify("password1", hash, salt, PasswordHasher.MIN_ITERATIONS + 1));
+    }
+
+    @Test
+    public void saltsAreUnique() {
+        String salt = PasswordHasher.generateSalt();
+        assertNotEquals(salt, PasswordHasher.generateSalt());
+        assertNotEquals(PasswordHasher.hash("password1", salt, PasswordHasher.MIN_ITERATIONS),
+                PasswordHasher.hash("password1", PasswordHasher.generateSalt(), PasswordHasher.MIN_ITERATIONS));
+    }
+
+    @Test
+    public void plainTextRecordsVerifyExactly() {
+        assertTrue(PasswordHasher.verifyPlainText("password1", "password1"));
+        assertFalse(PasswordHasher.verifyPlainText("password1", "password2"));
+        assertFalse(PasswordHasher.verifyPlainText("password1", "password12"));
+        assertTrue(PasswordHasher.verifyPlainText("p\u00e4ssword1", "p\u00e4ssword1"));
+    }
+
+    @Test
+    public void legacyHashesStillVerify() {
+        String salt = PasswordHasher.generateSalt();
+        String legacy = PasswordHasher.hashLegacy("password1", salt);
+
+        assertTrue(PasswordHasher.verify("password1", legacy, salt, PasswordHasher.LEGACY_ITERATIONS));
+        assertFalse(PasswordHasher.verify("password2", legacy, salt, PasswordHasher.LEGACY_ITERATIONS));
+    }
+
+    @Test
+    public void calibrationStaysWithinBounds() {
+        int iterations = PasswordHasher.calibrate(PasswordHasher.DEFAULT_TARGET_MILLIS);
+        assertTrue("iterations " + iterations, iterations >= PasswordHasher.MIN_ITERATIONS);
+        assertTrue("iterations " + iterations, iterations <= PasswordHasher.MAX_ITERATIONS);
+    }
+}
@@ -0,0 +1,37 @@
+package com.josephklenk.androidproject.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for shared input validation.
+ */
+public class ValidationTest {
+
+    @Test
+    public void blankInputIsInvalid() {
+        assertFalse(Validation.isValidInput(null));
+        assertFalse(Validation.isValidInput(""));
+        assertFalse(Validation.isValidInput("   "));
+        assertTrue(Validation.isValidInput("joseph"));
+    }
+
+    @Test
+    public void phoneNumbersFollowE164() {
+        assertTrue(Validation.isValidPhoneNumber("+15551234567"));
+        assertTrue(Validation.isValidPhoneNumber("5551234567"));
+        assertFalse(Validation.isValidPhoneNumber("0551234567"));
+        assertFalse(Validation.isValidPhoneNumber("555-123-4567"));
+        assertFalse(Validation.isValidPhoneNumber("+1234567890123456"));
+        assertFalse(Validation.isValidPhoneNumber(null));
+    }
+
+    @Test
+    public void epochDaysStayWithinFourDigitYears() {
+        assertTrue(Validation.isValidEpochDay(0));
+        assertTrue(Validation.isValidEpochDay(Validation.MAX_EPOCH_DAY));
+        assertFalse(Validation.isValidEpochDay(-1));
+        assertFalse(Validation.isValidEpochDay(Validation.MAX_EPOCH_DAY + 1));
+    }
+}
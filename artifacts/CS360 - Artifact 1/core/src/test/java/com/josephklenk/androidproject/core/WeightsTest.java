@@ -0,0 +1,74 @@
+package com.josephklenk.androidproject.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for fixed-point weight conversion and the goal rule.
+ */
+public class WeightsTest {
+
+    @Test
+    public void poundsRoundTripAtOneDecimal() {
+        for (long tenths = 1; tenths <= 10_000; tenths++) {
+            double pounds = tenths / 10.0;
+            assertEquals(tenths, Weights.toStored(pounds, Weights.UNIT_POUNDS));
+            assertEquals(pounds, Weights.fromStored(tenths), 0);
+        }
+    }
+
+    @Test
+    public void kilogramsConvertToNearestTenthOfAPound() {
+        assertEquals(1764, Weights.toStored(80.0, Weights.UNIT_KILOGRAMS));
+        assertEquals(0, Weights.toStored(80.0, 99));
+    }
+
+    @Test
+    public void storedRangeRejectsZeroNanAndOutOfRange() {
+        assertFalse(Weights.isValidStored(Weights.toStored(0.04, Weights.UNIT_POUNDS)));
+        assertFalse(Weights.isValidStored(Weights.toStored(Double.NaN, Weights.UNIT_POUNDS)));
+        assertFalse(Weights.isValidStored(Weights.toStored(1000.1, Weights.UNIT_POUNDS)));
+        assertTrue(Weights.isValidStored(Weights.toStored(0.1, Weights.UNIT_POUNDS)));
+        assertTrue(Weights.isValidStored(Weights.toStored(1000.0, Weights.UNIT_POUNDS)));
+    }
+
+    @Test
+    public void goalIsReachedWithinHalfAPound() {
+        assertTrue(Weights.isGoalReached(170.5, 170.0));
+        assertTrue(Weights.isGoalReached(169.5, 170.0));
+        assertTrue(Weights.isGoalReached(170.0, 170.0));
+        assertFalse(Weights.isGoalReached(170.6, 170.0));
+        assertFalse(Weights.isGoalReached(169.4, 170.0));
+        // No goal set
+        assertFalse(Weights.isGoalReached(170.0, -1));
+    }
+
+    @Test
+    public void meanAndDeviationAreExactForRepeatedValues() {
+        int count = 1000;
+        long stored = Weights.toStored(180.1, Weights.UNIT_POUNDS);
+        assertEquals(180.1, Weights.mean(stored * count, count), 0);
+        assertEquals(0.0, Weights.standardDeviation(stored * count, stored * stored * count, count), 0);
+        assertEquals(0.0, Weights.mean(0, 0), 0);
+    }
+
+    @Test
+    public void deviationMatchesDirectComputation() {
+        long[] values = {1800, 1795, 1812, 1788, 1801};
+        long sum = 0;
+        long sumOfSquares = 0;
+        for (long value : values) {
+            sum += value;
+            sumOfSquares += value * value;
+        }
+        double mean = sum / (double) values.length;
+        double squaredError = 0;
+        for (long value : values) {
+            squaredError += (value - mean) * (value - mean);
+        }
+        double expected = Math.sqrt(squaredError / values.length) / Weights.SCALE;
+
+        assertEquals(expected, Weights.standardDeviation(sum, sumOfSquares, values.length), 1e-9);
+    }
+}
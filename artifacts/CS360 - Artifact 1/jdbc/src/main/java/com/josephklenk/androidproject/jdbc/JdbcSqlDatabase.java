@@ -0,0 +1,124 @@
+package com.josephklenk.androidproject.jdbc;
+
+import com.josephklenk.androidproject.core.SqlDatabase;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * SqlDatabase over a JDBC connection, for running the shared migrations.
+ * SQLExceptions are rethrown unchecked, as Android's SQLiteException is.
+ */
+class JdbcSqlDatabase implements SqlDatabase {
+    private final Connection connection;
+
+    JdbcSqlDatabase(Connection connection) {
+        this.connection = connection;
+    }
+
+    @Override
+    public void execSQL(String sql, Object... bindArgs) {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            bind(statement, bindArgs);
+            statement.execute();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Statement failed: " + sql, e);
+        }
+    }
+
+    @Override
+    public Rows query(String sql, Object... bindArgs) {
+        try {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            bind(statement, bindArgs);
+            return new ResultSetRows(statement, statement.executeQuery());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Query failed: " + sql, e);
+        }
+    }
+
+    @Override
+    public void inTransaction(Runnable work) {
+        try {
+            if (!connection.getAutoCommit()) {
+                work.run(); // Already inside the caller's transaction
+                return;
+            }
+            connection.setAutoCommit(false);
+            try {
+                work.run();
+                connection.commit();
+            } catch (RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Transaction failed", e);
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Object[] bindArgs) throws SQLException {
+        for (int i = 0; i < bindArgs.length; i++) {
+            statement.setObject(i + 1, bindArgs[i]);
+        }
+    }
+
+    private static class ResultSetRows implements Rows {
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+
+        ResultSetRows(PreparedStatement statement, ResultSet resultSet) {
+            this.statement = statement;
+            this.resultSet = resultSet;
+        }
+
+        @Override
+        public boolean next() {
+            try {
+                return resultSet.next();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public long getLong(int column) {
+            try {
+                return resultSet.getLong(column + 1);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public String getString(int column) {
+            try {
+                return resultSet.getString(column + 1);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean isNull(int column) {
+            try {
+                resultSet.getObject(column + 1);
+                return resultSet.wasNull();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                statement.close(); // Closes the result set too
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,612 @@
+package com.josephklenk.androidproject.jdbc;
+
+import com.josephklenk.androidproject.core.PasswordHasher;
+import com.josephklenk.androidproject.core.Sessions;
+import com.josephklenk.androidproject.core.Validation;
+import com.josephklenk.androidproject.core.WeightMigrations;
+import com.josephklenk.androidproject.core.WeightRepository;
+import com.josephklenk.androidproject.core.Weights;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.josephklenk.androidproject.core.WeightSchema.*;
+
+/**
+ * WeightRepository over sqlite-jdbc for JVM tests and load tests. Opens,
+ * creates and upgrades the database the way SQLiteOpenHelper does, with the
+ * same connection settings, schema, migrations and hot-path SQL as
+ * DatabaseHelper. One connection serves all calls, so methods are
+ * synchronized. There is no in-memory summary cache; reads go to SQLite.
+ */
+public class JdbcWeightRepository implements WeightRepository, AutoCloseable {
+    private static final String TAG = "JdbcWeightRepository";
+    private static final Logger LOG = Logger.getLogger(TAG);
+
+    // Connection tuning, matching DatabaseHelper.onConfigure
+    private static final String SYNCHRONOUS_MODE = "NORMAL";
+
+    private final Connection connection;
+    private final int workFactor; // PBKDF2 iterations for new hashes
+
+    // Prepared hot-path statements keyed by SQL
+    private final Map<String, PreparedStatement> statementCache = new HashMap<>();
+
+    /**
+     * Opens a database file, creating or upgrading it to WeightSchema.VERSION
+     * @param file Database file
+     * @param workFactor PBKDF2 iterations for new password hashes
+     * @return Open repository; close it when done
+     * @throws SQLException if the database cannot be opened, created or upgraded
+     */
+    public static JdbcWeightRepository open(File file, int workFactor) throws SQLException {
+        return open(file, workFactor, null);
+    }
+
+    /**
+     * Opens a database file, reporting upgrade progress. Each migration step
+     * commits on its own, so an upgrade interrupted here resumes on the next open.
+     * @param file Database file
+     * @param workFactor PBKDF2 iterations for new password hashes
+     * @param listener Upgrade progress receiver, may be null
+     * @return Open repository; close it when done
+     * @throws SQLException if the database cannot be opened, created or upgraded
+     */
+    public static JdbcWeightRepository open(File file, int workFactor, WeightMigrations.ProgressListener listener)
+            throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        try {
+            configure(connection);
+            migrate(connection, listener);
+            return new JdbcWeightRepository(connection, workFactor);
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private JdbcWeightRepository(Connection connection, int workFactor) {
+        this.connection = connection;
+        this.workFactor = workFactor;
+    }
+
+    private static void configure(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=" + SYNCHRONOUS_MODE);
+        }
+    }
+
+    /**
+     * Creates or upgrades the schema in autocommit mode, so the shared
+     * migrations commit each step and batch in its own transaction
+     */
+    private static void migrate(Connection connection, WeightMigrations.ProgressListener listener)
+            throws SQLException {
+        JdbcSqlDatabase db = new JdbcSqlDatabase(connection);
+        int oldVersion = WeightMigrations.userVersion(db);
+        if (oldVersion > VERSION) {
+            throw new SQLException("Cannot downgrade database from version " + oldVersion + " to " + VERSION);
+        }
+        if (oldVersion != VERSION) {
+            LOG.fine("Upgrading database from version " + oldVersion + " to " + VERSION);
+        }
+        WeightMigrations.migrate(db, listener);
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            for (PreparedStatement statement : statementCache.values()) {
+                statement.close();
+            }
+            statementCache.clear();
+            connection.close();
+        } catch (SQLException e) {
+            LOG.log(Level.WARNING, "Error closing database", e);
+        }
+    }
+
+    // USER OPERATIONS
+
+    @Override
+    public synchronized long addUser(String username, String password) {
+        if (!Validation.isValidInput(username) || !Validation.isValidInput(password)) {
+            LOG.warning("Invalid username or password provided");
+            return -1;
+        }
+
+        try {
+            String salt = PasswordHasher.generateSalt();
+            PreparedStatement statement = cachedStatement("INSERT INTO " + TABLE_USERS + " (" + KEY_USERNAME + ", "
+                    + KEY_PASSWORD + ", " + KEY_SALT + ", " + KEY_ITERATIONS + ") VALUES (?, ?, ?, ?)");
+            statement.setString(1, username.trim());
+            statement.setString(2, PasswordHasher.hash(password, salt, workFactor));
+            statement.setString(3, salt);
+            statement.setInt(4, workFactor);
+            return executeInsert(statement);
+
+        } catch (SQLException | SecurityException e) {
+            LOG.log(Level.SEVERE, "Error adding user: " + username, e);
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized AuthResult authenticate(String username, String password) {
+        if (!Validation.isValidInput(username) || !Validation.isValidInput(password)) {
+            return new AuthResult(AuthResult.BAD_PASSWORD, -1);
+        }
+
+        try {
+            long userId;
+            String storedHash;
+            String salt;
+            int iterations;
+            PreparedStatement statement = cachedStatement(SQL_USER_CREDENTIALS);
+            statement.setString(1, username.trim());
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return new AuthResult(AuthResult.NO_SUCH_USER, -1);
+                }
+                userId = rs.getLong(1);
+                storedHash = rs.getString(2);
+                salt = rs.getString(3);
+                iterations = rs.getInt(4);
+            }
+
+            if (storedHash == null || storedHash.isEmpty()) {
+                LOG.log(Level.SEVERE, "No stored password hash for user: " + userId);
+                return new AuthResult(AuthResult.ERROR, -1);
+            }
+
+            // Handle legacy users without salt
+            if (salt == null || salt.isEmpty()) {
+                if (!PasswordHasher.verifyPlainText(password, storedHash)) {
+                    return new AuthResult(AuthResult.BAD_PASSWORD, -1);
+                }
+                rehashPassword(userId, password);
+                return new AuthResult(AuthResult.LEGACY_HASH, userId);
+            }
+
+            if (!PasswordHasher.verify(password, storedHash, salt, iterations)) {
+                return new AuthResult(AuthResult.BAD_PASSWORD, -1);
+            }
+            boolean legacy = iterations == PasswordHasher.LEGACY_ITERATIONS;
+            if (legacy || iterations < workFactor) {
+                rehashPassword(userId, password);
+            }
+            return new AuthResult(legacy ? AuthResult.LEGACY_HASH : AuthResult.SUCCESS, userId);
+
+        } catch (SQLException | SecurityException | IllegalArgumentException e) {
+            LOG.log(Level.SEVERE, "Error authenticating user: " + username, e);
+            return new AuthResult(AuthResult.ERROR, -1);
+        }
+    }
+
+    @Override
+    public synchronized long getUserId(String username) {
+        if (!Validation.isValidInput(username)) {
+            return -1;
+        }
+
+        try {
+            PreparedStatement statement = cachedStatement(SQL_USER_ID);
+            statement.setString(1, username.trim());
+            return queryLong(statement);
+        } catch (SQLException e) {
+            LOG.log(Level.SEVERE, "Error getting user ID for: " + username, e);
+            return -1;
+        }
+    }
+
+    // SESSION OPERATIONS
+
+    @Override
+    public synchronized String createSession(long userId) {
+        String token = Sessions.newToken();
+        long now = System.currentTimeMillis();
+
+        try {
+            PreparedStatement purge = cachedStatement("DELETE FROM " + TABLE_SESSIONS
+                    + " WHERE " + KEY_EXPIRES_AT + "<=?");
+            purge.setLong(1, now);
+            purge.executeUpdate();
+
+            PreparedStatement insert = cachedStatement("INSERT INTO " + TABLE_SESSIONS + " (" + KEY_TOKEN_HASH
+                    + ", " + KEY_USER_ID + ", " + KEY_EXPIRES_AT + ") VALUES (?, ?, ?)");
+            insert.setString(1, Sessions.hashToken(token));
+            insert.setLong(2, userId);
+            insert.setLong(3, now + Sessions.TTL_MILLIS);
+            insert.executeUpdate();
+            return token;
+
+        } catch (SQLException | SecurityException e) {
+            LOG.log(Level.SEVERE, "Error creating session for user: " + userId, e);
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized long getSessionUserId(String token) {
+        if (token == null || token.isEmpty()) {
+            return -1;
+        }
+
+        try {
+            PreparedStatement statement = cachedStatement(SQL_SESSION_USER);
+            statement.setString(1, Sessions.hashToken(token));
+            statement.setLong(2, System.currentTimeMillis());
+            return queryLong(statement);
+        } catch (SQLException | SecurityException e) {
+            LOG.log(Level.SEVERE, "Error resolving session", e);
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized boolean revokeSession(String token) {
+        if (token == null || token.isEmpty()) {
+            return true;
+        }
+
+        try {
+            PreparedStatement statement = cachedStatement(SQL_DELETE_SESSION);
+            statement.setString(1, Sessions.hashToken(token));
+            statement.executeUpdate();
+            return true;
+        } catch (SQLException | SecurityException e) {
+            LOG.log(Level.SEVERE, "Error revoking session", e);
+            return false;
+        }
+    }
+
+    // WEIGHT OPERATIONS
+
+    @Override
+    public synchronized long addWeight(long userId, double weight, int unit, long epochDay) {
+        long stored = Weights.toStored(weight, unit);
+        if (!Weights.isValidStored(stored) || !Validation.isValidEpochDay(epochDay)) {
+            LOG.warning("Invalid weight or date provided");
+            return -1;
+        }
+
+        try {
+            return insertWeight(userId, stored, unit, epochDay);
+        } catch (SQLException e) {
+            LOG.log(Level.SEVERE, "Error adding weight entry for user: " + userId, e);
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized BulkInsertResult addWeights(long userId, List<WeightEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return new BulkInsertResult(0, Collections.<Integer>emptyList());
+        }
+
+        List<Integer> failedRows = new ArrayList<>();
+        int inserted = 0;
+        try {
+            connection.setAutoCommit(false);
+            try {
+                for (int i = 0; i < entries.size(); i++) {
+                    WeightEntry entry = entries.get(i);
+                    long stored = entry != null ? Weights.toStored(entry.getWeight(), Weights.UNIT_POUNDS) : 0;
+                    if (!Weights.isValidStored(stored) || !Validation.isValidEpochDay(entry.getEpochDay())) {
+                        failedRows.add(i);
+                        continue;
+                    }
+                    try {
+                        insertWeight(userId, stored, Weights.UNIT_POUNDS, entry.getEpochDay());
+                        inserted++;
+                    } catch (SQLException e) {
+                        LOG.log(Level.WARNING, "Bulk insert rejected row " + i + " for user: " + userId, e);
+                        failedRows.add(i);
+                    }
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            return new BulkInsertResult(inserted, failedRows);
+
+        } catch (SQLException e) {
+            LOG.log(Level.SEVERE, "Error bulk adding weight entries for user: " + userId, e);
+            // Transaction rolled back; nothing from this batch was written
+            List<Integer> allRows = new ArrayList<>(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                allRows.add(i);
+            }
+            return new BulkInsertResult(0, allRows);
+        }
+    }
+
+    @Override
+    public synchronized void deleteWeight(long weightId) {
+        try {
+            PreparedStatement statement = cachedStatement("DELETE FROM " + TABLE_WEIGHTS + " WHERE " + KEY_ID + "=?");
+            statement.setLong(1, weightId);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            LOG.log(Level.SEVERE, "Error deleting weight entry: " + weightId, e);
+        }
+    }
+
+    @Override
+    public synchronized int forEachWeightInPage(long userId, long pageToken, int pageSize, WeightVisitor visitor) {
+        if (pageToken == NO_MORE_PAGES || pageSize <= 0) {
+            LOG.warning("Invalid page request for user: " + userId);
+            return -1;
+        }
+
+        try {
+            PreparedStatement statement = cachedStatement(SQL_WEIGHTS_PAGE);
+            statement.setLong(1, userId);
+            statement.setLong(2, pageToken);
+            statement.setInt(3, pageSize);
+            return visitWeights(statement, visitor);
+        } catch (SQLException e) {
+            LOG.log(Level.SEVERE, "Error getting weights page for user: " + userId, e);
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized int forEachWeightBetween(long userId, long fromEpochDay, long toEpochDay,
+                                                 WeightVisitor visitor) {
+        if (fromEpochDay > toEpochDay) {
+            LOG.warning("Invalid date range: " + fromEpochDay + " > " + toEpochDay);
+            return -1;
+        }
+
+        try {
+            PreparedStatement statement = cachedStatement(SQL_WEIGHTS_BETWEEN);
+            statement.setLong(1, userId);
+            statement.setLong(2, fromEpochDay);
+            statement.setLong(3, toEpochDay);
+            return visitWeights(statement, visitor);
+        } catch (SQLException e) {
+            LOG.log(Level.SEVERE, "Error streaming weights in range for user: " + userId, e);
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized double getLatestWeight(long userId) {
+        try {
+            return queryWeightForUser(SQL_LATEST_WEIGHT, userId);
+        } catch (SQLException e) {
+            LOG.log(Level.SEVERE, "Error getting latest weight for user: " + userId, e);
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized UserStats getUserStats(long userId) {
+        try {
+            PreparedStatement statement = cachedStatement(SQL_USER_STATS);
+            statement.setLong(1, userId);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next()) {
+                    return new UserStats(rs.getInt(1), rs.getLong(2), rs.getLong(3),
+                            rs.getLong(4), rs.getLong(5), rs.getLong(6));
+                }
+                return null;
+            }
+        } catch (SQLException e) {
+            LOG.log(Level.SEVERE, "Error getting statistics for user: " + userId, e);
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized List<WeightRollup> getWeightRollups(long userId, int granularity,
+                                                            long fromEpochDay, long toEpochDay) {
+        List<WeightRollup> rollups = new ArrayList<>();
+        try {
+            PreparedStatement statement = cachedStatement(SQL_WEIGHT_ROLLUPS);
+            statement.setLong(1, userId);
+            statement.setInt(2, granularity);
+            statement.setLong(3, periodStart(granularity, fromEpochDay));
+            statement.setLong(4, toEpochDay);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    rollups.add(new WeightRollup(rs.getLong(1), rs.getInt(2), rs.getLong(3),
+                            rs.getLong(4), rs.getLong(5)));
+                }
+            }
+            return rollups;
+        } catch (SQLException e) {
+            LOG.log(Level.SEVERE, "Error getting weight rollups for user: " + userId, e);
+            return rollups;
+        }
+    }
+
+    @Override
+    public synchronized DashboardSummary getDashboard(long userId, WeightVisitor history) {
+        try {
+            PreparedStatement statement = cachedStatement(SQL_DASHBOARD);
+            statement.setLong(1, userId);
+            statement.setInt(2, DEFAULT_PAGE_SIZE);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                int entryCount = rs.getInt(2);
+                double latest = storedOrMissing(rs, 3);
+                double goal = storedOrMissing(rs, 4);
+                double first = storedOrMissing(rs, 5);
+                while (rs.next()) {
+                    history.visit(rs.getLong(6), rs.getDouble(7), rs.getLong(8));
+                }
+                return new DashboardSummary(latest, goal, entryCount, first);
+            }
+        } catch (SQLException e) {
+            LOG.log(Level.SEVERE, "Error loading dashboard for user: " + userId, e);
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized boolean rebuildSummaries() {
+        try {
+            connection.setAutoCommit(false);
+            try {
+                JdbcSqlDatabase db = new JdbcSqlDatabase(connection);
+                WeightMigrations.execAll(db, rebuildUserStats());
+                WeightMigrations.execAll(db, rebuildWeightRollups());
+                connection.commit();
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException | RuntimeException e) {
+            LOG.log(Level.SEVERE, "Error rebuilding summaries", e);
+            return false;
+        }
+    }
+
+    // GOAL OPERATIONS
+
+    @Override
+    public synchronized long setGoalWeight(long userId, double weight) {
+        long stored = Weights.toStored(weight, Weights.UNIT_POUNDS);
+        if (!Weights.isValidStored(stored)) {
+            LOG.warning("Invalid goal weight provided");
+            return -1;
+        }
+
+        try {
+            PreparedStatement statement = cachedStatement(SQL_UPSERT_GOAL);
+            statement.setLong(1, userId);
+            statement.setLong(2, stored);
+            statement.setInt(3, Weights.UNIT_POUNDS);
+            return executeInsert(statement);
+        } catch (SQLException e) {
+            LOG.log(Level.SEVERE, "Error setting goal weight for user: " + userId, e);
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized double getGoalWeight(long userId) {
+        try {
+            return queryWeightForUser(SQL_GOAL_WEIGHT, userId);
+        } catch (SQLException e) {
+            LOG.log(Level.SEVERE, "Error getting goal weight for user: " + userId, e);
+            return -1;
+        }
+    }
+
+    // STATEMENT HELPERS
+
+    /**
+     * Returns the prepared statement for a query, preparing it on first use
+     */
+    private PreparedStatement cachedStatement(String sql) throws SQLException {
+        PreparedStatement statement = statementCache.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statementCache.put(sql, statement);
+        }
+        return statement;
+    }
+
+    private long insertWeight(long userId, long stored, int unit, long epochDay) throws SQLException {
+        PreparedStatement statement = cachedStatement(SQL_INSERT_WEIGHT);
+        statement.setLong(1, userId);
+        statement.setLong(2, stored);
+        statement.setInt(3, unit);
+        statement.setLong(4, epochDay);
+        return executeInsert(statement);
+    }
+
+    /**
+     * Runs an insert and returns the new rowid, like SQLiteStatement.executeInsert
+     */
+    private long executeInsert(PreparedStatement statement) throws SQLException {
+        if (statement.executeUpdate() == 0) {
+            return -1;
+        }
+        PreparedStatement rowId = cachedStatement("SELECT last_insert_rowid()");
+        return queryLong(rowId);
+    }
+
+    /**
+     * @return First column of the first row, or -1 if there is no row
+     */
+    private static long queryLong(PreparedStatement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : -1;
+        }
+    }
+
+    /**
+     * Runs a single-column stored-weight lookup keyed by user ID
+     * @return Weight in pounds, or -1 if there is no row or the value is NULL
+     */
+    private double queryWeightForUser(String sql, long userId) throws SQLException {
+        PreparedStatement statement = cachedStatement(sql);
+        statement.setLong(1, userId);
+        try (ResultSet rs = statement.executeQuery()) {
+            return rs.next() ? storedOrMissing(rs, 1) : -1;
+        }
+    }
+
+    private static double storedOrMissing(ResultSet rs, int column) throws SQLException {
+        long stored = rs.getLong(column);
+        return rs.wasNull() ? -1 : Weights.fromStored(stored);
+    }
+
+    /**
+     * Feeds each (id, pounds, epoch day) row of a weight query to a visitor
+     * @return Number of rows visited
+     */
+    private static int visitWeights(PreparedStatement statement, WeightVisitor visitor) throws SQLException {
+        int visited = 0;
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                visitor.visit(rs.getLong(1), rs.getDouble(2), rs.getLong(3)); // Already in pounds
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Replaces a user's stored hash with a fresh salt at the current work
+     * factor. Failure is logged and ignored; the old hash remains valid.
+     */
+    private void rehashPassword(long userId, String password) {
+        try {
+            String salt = PasswordHasher.generateSalt();
+            PreparedStatement statement = cachedStatement("UPDATE " + TABLE_USERS + " SET " + KEY_PASSWORD + "=?, "
+                    + KEY_SALT + "=?, " + KEY_ITERATIONS + "=? WHERE " + KEY_ID + "=?");
+            statement.setString(1, PasswordHasher.hash(password, salt, workFactor));
+            statement.setString(2, salt);
+            statement.setInt(3, workFactor);
+            statement.setLong(4, userId);
+            statement.executeUpdate();
+        } catch (SQLException | SecurityException e) {
+            LOG.log(Level.SEVERE, "Error upgrading password hash for user: " + userId, e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,231 @@
+package com.josephklenk.androidproject.jdbc;
+
+import com.josephklenk.androidproject.core.PasswordHasher;
+import com.josephklenk.androidproject.core.WeightMigrations;
+import com.josephklenk.androidproject.core.WeightRepository;
+import com.josephklenk.androidproject.core.WeightSchema;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Upgrades large version 1 databases through the batched migrations,
+ * including runs interrupted part-way through a step.
+ */
+public class JdbcMigrationTest {
+    private static final int WEIGHTS_PER_USER = 3;
+
+    // Generous for CI; a v1 database of this size upgrades in under ten seconds on a laptop
+    private static final int LARGE_USER_COUNT = 100_000;
+    private static final long LARGE_MIGRATION_BUDGET_MILLIS = 60_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private JdbcWeightRepository repository;
+
+    @Before
+    public void setUp() {
+        file = new File(folder.getRoot(), "weights.db");
+    }
+
+    @After
+    public void tearDown() {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+    @Test
+    public void largeVersionOneDatabaseMigratesWithinBudget() throws Exception {
+        createVersionOneDatabase(LARGE_USER_COUNT);
+
+        List<Double> fractions = new ArrayList<>();
+        long start = System.nanoTime();
+        repository = JdbcWeightRepository.open(file, PasswordHasher.MIN_ITERATIONS,
+                (version, fraction) -> fractions.add(fraction));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue("Migration took " + elapsedMillis + " ms", elapsedMillis < LARGE_MIGRATION_BUDGET_MILLIS);
+
+        for (int i = 1; i < fractions.size(); i++) {
+            assertTrue("Progress went backwards at update " + i, fractions.get(i) >= fractions.get(i - 1));
+        }
+        assertEquals(1.0, fractions.get(fractions.size() - 1), 1e-9);
+
+        assertEquals(WeightSchema.VERSION, userVersion());
+        assertEquals(LARGE_USER_COUNT, count("SELECT COUNT(*) FROM users"));
+        assertEquals(LARGE_USER_COUNT * WEIGHTS_PER_USER, count("SELECT COUNT(*) FROM weights"));
+        assertEquals(LARGE_USER_COUNT / 2, count("SELECT COUNT(*) FROM goals"));
+        assertEquals(LARGE_USER_COUNT, count("SELECT COUNT(*) FROM user_stats"));
+        assertEquals(0, count("SELECT COUNT(*) FROM sqlite_master WHERE name='migration_progress'"));
+
+        assertLogsIn(1);
+        assertLogsIn(LARGE_USER_COUNT);
+        assertEquals(182.0, repository.getLatestWeight(LARGE_USER_COUNT), 1e-9);
+        assertEquals(170, repository.getGoalWeight(2), 1e-9);
+    }
+
+    @Test
+    public void interruptedMigrationResumesWithoutRepeatingBatches() throws Exception {
+        int users = 2 * WeightMigrations.BATCH_SIZE + 2000;
+        createVersionOneDatabase(users);
+
+        // Killed after the first batch of password hashing commits
+        try {
+            JdbcWeightRepository.open(file, PasswordHasher.MIN_ITERATIONS, (version, fraction) -> {
+                if (version == 2 && fraction > 0) {
+                    throw new IllegalStateException("interrupted");
+                }
+            });
+            fail("Migration should have been interrupted");
+        } catch (IllegalStateException expected) {
+            // Batch committed, step not finished
+        }
+        assertEquals(1, userVersion());
+        assertEquals(WeightMigrations.BATCH_SIZE, count("SELECT last_id FROM migration_progress WHERE step='2:users'"));
+
+        // Killed again after the first batch of weights is copied into integer tenths
+        int[] stepTenUpdates = new int[1];
+        try {
+            JdbcWeightRepository.open(file, PasswordHasher.MIN_ITERATIONS, (version, fraction) -> {
+                if (version == 10 && ++stepTenUpdates[0] == 2) {
+                    throw new IllegalStateException("interrupted");
+                }
+            });
+            fail("Migration should have been interrupted");
+        } catch (IllegalStateException expected) {
+            // Steps 2 to 9 committed, step 10 part-way
+        }
+        assertEquals(9, userVersion());
+        assertEquals(WeightMigrations.BATCH_SIZE, count("SELECT last_id FROM migration_progress WHERE step='10:weights'"));
+
+        repository = JdbcWeightRepository.open(file, PasswordHasher.MIN_ITERATIONS);
+        assertEquals(WeightSchema.VERSION, userVersion());
+        assertEquals(users * WEIGHTS_PER_USER, count("SELECT COUNT(*) FROM weights"));
+        assertEquals(users, count("SELECT COUNT(*) FROM user_stats"));
+
+        // Hashed once in the first run and not again on resume, so both ends of the table still log in
+        assertLogsIn(1);
+        assertLogsIn(WeightMigrations.BATCH_SIZE + 1);
+        assertLogsIn(users);
+        assertEquals(180.3, repository.getUserStats(1).getMinWeight(), 1e-9); // Rounded to tenths once, not twice
+    }
+
+    @Test
+    public void unparseableDatesAreSetAsideNotCountedAsReadings() throws Exception {
+        createVersionOneDatabase(2);
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            statement.execute("UPDATE weights SET date='01/02/2024' WHERE id=2");
+            statement.execute("UPDATE weights SET date='2024-13-45' WHERE id=5");
+        }
+
+        repository = JdbcWeightRepository.open(file, PasswordHasher.MIN_ITERATIONS);
+
+        // Nothing is lost: the undated rows move whole, original text included
+        assertEquals(2 * WEIGHTS_PER_USER - 2, count("SELECT COUNT(*) FROM weights"));
+        assertEquals(2, count("SELECT COUNT(*) FROM " + WeightMigrations.TABLE_UNDATED_WEIGHTS
+                + " WHERE (id=2 AND user_id=1 AND original_date='01/02/2024')"
+                + " OR (id=5 AND user_id=2 AND original_date='2024-13-45')"));
+        assertEquals(0, count("SELECT COUNT(*) FROM weights WHERE epoch_day=0"));
+        assertEquals(0, count("SELECT COUNT(*) FROM weight_rollups WHERE period_start<19000"));
+
+        // Stats and the dashboard see only the dated readings
+        WeightRepository.UserStats stats = repository.getUserStats(1);
+        assertEquals(2, stats.getEntryCount());
+        assertEquals(182.0, stats.getMaxWeight(), 1e-9);
+        List<Long> days = new ArrayList<>();
+        WeightRepository.DashboardSummary dashboard = repository.getDashboard(1,
+                (id, weight, epochDay) -> days.add(epochDay));
+        assertEquals(2, dashboard.getEntryCount());
+        assertEquals(180.3, dashboard.getFirstWeight(), 1e-9);
+        assertEquals(182.0, dashboard.getLatestWeight(), 1e-9);
+        assertEquals(Arrays.asList(19725L, 19723L), days);
+    }
+
+    private void assertLogsIn(long userId) {
+        WeightRepository.AuthResult result = repository.authenticate(username(userId), password(userId));
+        assertEquals(WeightRepository.AuthResult.LEGACY_HASH, result.getStatus());
+        assertEquals(userId, result.getUserId());
+    }
+
+    private static String username(long userId) {
+        return "user" + userId;
+    }
+
+    private static String password(long userId) {
+        return "password" + userId;
+    }
+
+    /**
+     * Builds the version 1 schema with plain text passwords, three dated
+     * weights per user and a goal for every second user
+     */
+    private void createVersionOneDatabase(int users) throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath())) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                        + " username TEXT UNIQUE NOT NULL, password TEXT NOT NULL)");
+                statement.execute("CREATE TABLE weights (id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                        + " user_id INTEGER NOT NULL, weight REAL NOT NULL, date TEXT NOT NULL)");
+                statement.execute("CREATE TABLE goals (id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                        + " user_id INTEGER UNIQUE NOT NULL, goal_weight REAL NOT NULL)");
+                statement.execute("CREATE INDEX idx_user_weights ON weights(user_id)");
+            }
+
+            connection.setAutoCommit(false);
+            try (PreparedStatement user = connection.prepareStatement("INSERT INTO users (id, username, password) VALUES (?, ?, ?)");
+                 PreparedStatement weight = connection.prepareStatement("INSERT INTO weights (user_id, weight, date) VALUES (?, ?, ?)");
+                 PreparedStatement goal = connection.prepareStatement("INSERT INTO goals (user_id, goal_weight) VALUES (?, 170)")) {
+                for (long id = 1; id <= users; id++) {
+                    user.setLong(1, id);
+                    user.setString(2, username(id));
+                    user.setString(3, password(id));
+                    user.executeUpdate();
+                    for (int day = 0; day < WEIGHTS_PER_USER; day++) {
+                        weight.setLong(1, id);
+                        weight.setDouble(2, 180.25 + day * 0.875);
+                        weight.setString(3, "2024-01-0" + (day + 1));
+                        weight.executeUpdate();
+                    }
+                    if (id % 2 == 0) {
+                        goal.setLong(1, id);
+                        goal.executeUpdate();
+                    }
+                }
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA user_version=1");
+            }
+        }
+    }
+
+    private int userVersion() throws Exception {
+        return (int) count("PRAGMA user_version");
+    }
+
+    private long count(String sql) throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            return rs.getLong(1);
+        }
+    }
+}
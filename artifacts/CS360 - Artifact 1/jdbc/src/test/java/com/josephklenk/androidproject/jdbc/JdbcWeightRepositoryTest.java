@@ -0,0 +1,231 @@
+package com.josephklenk.androidproject.jdbc;
+
+import com.josephklenk.androidproject.core.PasswordHasher;
+import com.josephklenk.androidproject.core.WeightRepository;
+import com.josephklenk.androidproject.core.WeightSchema;
+import java.io.File;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the repository contract against sqlite-jdbc, including an upgrade
+ * of a version 1 database through the shared migrations.
+ */
+public class JdbcWeightRepositoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private JdbcWeightRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        file = new File(folder.getRoot(), "weights.db");
+    }
+
+    @After
+    public void tearDown() {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+    @Test
+    public void usersAuthenticateAndResumeSessions() throws Exception {
+        repository = JdbcWeightRepository.open(file, PasswordHasher.MIN_ITERATIONS);
+        long userId = repository.addUser("alice", "password1");
+        assertTrue(userId > 0);
+        assertEquals(userId, repository.getUserId("alice"));
+
+        WeightRepository.AuthResult ok = repository.authenticate("alice", "password1");
+        assertEquals(WeightRepository.AuthResult.SUCCESS, ok.getStatus());
+        assertEquals(userId, ok.getUserId());
+        assertEquals(WeightRepository.AuthResult.BAD_PASSWORD, repository.authenticate("alice", "wrong1").getStatus());
+        assertEquals(WeightRepository.AuthResult.NO_SUCH_USER, repository.authenticate("bob", "password1").getStatus());
+
+        String token = repository.createSession(userId);
+        assertEquals(userId, repository.getSessionUserId(token));
+        assertEquals(-1, repository.getSessionUserId("not-a-token"));
+
+        assertTrue(repository.revokeSession(token));
+        assertEquals(-1, repository.getSessionUserId(token));
+    }
+
+    @Test
+    public void saltedLegacyHashIsRehashedOnLogin() throws Exception {
+        repository = JdbcWeightRepository.open(file, PasswordHasher.MIN_ITERATIONS);
+        String salt = PasswordHasher.generateSalt();
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        sha256.update(Base64.getDecoder().decode(salt));
+        String legacyHash = Base64.getEncoder().encodeToString(sha256.digest("password1".getBytes()));
+        insertUser("olduser", legacyHash, salt, PasswordHasher.LEGACY_ITERATIONS);
+
+        assertEquals(WeightRepository.AuthResult.BAD_PASSWORD, repository.authenticate("olduser", "wrong1").getStatus());
+        assertEquals(PasswordHasher.LEGACY_ITERATIONS, storedIterations("olduser"));
+
+        assertEquals(WeightRepository.AuthResult.LEGACY_HASH, repository.authenticate("olduser", "password1").getStatus());
+        assertEquals(PasswordHasher.MIN_ITERATIONS, storedIterations("olduser"));
+        assertEquals(WeightRepository.AuthResult.SUCCESS, repository.authenticate("olduser", "password1").getStatus());
+    }
+
+    @Test
+    public void malformedStoredHashIsAnError() throws Exception {
+        repository = JdbcWeightRepository.open(file, PasswordHasher.MIN_ITERATIONS);
+        insertUser("badhash", "!not base64!", PasswordHasher.generateSalt(), PasswordHasher.MIN_ITERATIONS);
+        insertUser("badsalt", "AAAA", "!not base64!", PasswordHasher.MIN_ITERATIONS);
+        insertUser("nohash", "", PasswordHasher.generateSalt(), PasswordHasher.MIN_ITERATIONS);
+
+        // A corrupt record is a storage problem, not a wrong password
+        for (String username : new String[]{"badhash", "badsalt", "nohash"}) {
+            WeightRepository.AuthResult result = repository.authenticate(username, "password1");
+            assertEquals(username, WeightRepository.AuthResult.ERROR, result.getStatus());
+            assertFalse(result.isAuthenticated());
+        }
+    }
+
+    @Test
+    public void historyPagesAndSummariesMatchInserts() throws Exception {
+        repository = JdbcWeightRepository.open(file, PasswordHasher.MIN_ITERATIONS);
+        long userId = repository.addUser("alice", "password1");
+
+        List<WeightRepository.WeightEntry> entries = new ArrayList<>();
+        for (int day = 0; day < 120; day++) {
+            entries.add(new WeightRepository.WeightEntry(200 - day * 0.1, 19000 + day));
+        }
+        entries.add(new WeightRepository.WeightEntry(-5, 19200)); // Not a weight
+        WeightRepository.BulkInsertResult result = repository.addWeights(userId, entries);
+        assertEquals(120, result.getInsertedCount());
+        assertEquals(Arrays.asList(120), result.getFailedRows());
+        repository.setGoalWeight(userId, 180);
+
+        List<Long> ids = new ArrayList<>();
+        long token = WeightRepository.FIRST_PAGE;
+        int visited;
+        do {
+            List<Long> page = new ArrayList<>();
+            visited = repository.forEachWeightInPage(userId, token, WeightRepository.DEFAULT_PAGE_SIZE,
+                    (id, weight, epochDay) -> page.add(id));
+            ids.addAll(page);
+            token = page.isEmpty() ? WeightRepository.NO_MORE_PAGES : page.get(page.size() - 1);
+        } while (visited == WeightRepository.DEFAULT_PAGE_SIZE);
+        assertEquals(120, ids.size());
+        assertTrue(ids.get(0) > ids.get(119)); // Newest first
+
+        WeightRepository.UserStats stats = repository.getUserStats(userId);
+        assertEquals(120, stats.getEntryCount());
+        assertEquals(188.1, stats.getLatestWeight(), 1e-9);
+        assertEquals(188.1, repository.getLatestWeight(userId), 1e-9);
+        assertEquals(180, repository.getGoalWeight(userId), 1e-9);
+
+        List<Double> firstPage = new ArrayList<>();
+        WeightRepository.DashboardSummary dashboard = repository.getDashboard(userId,
+                (id, weight, epochDay) -> firstPage.add(weight));
+        assertEquals(120, dashboard.getEntryCount());
+        assertEquals(200, dashboard.getFirstWeight(), 1e-9);
+        assertEquals(WeightRepository.DEFAULT_PAGE_SIZE, firstPage.size());
+        assertEquals(188.1, firstPage.get(0), 1e-9);
+
+        // Users without history still get a summary row and no page rows
+        long emptyUser = repository.addUser("bob", "password1");
+        List<Double> emptyPage = new ArrayList<>();
+        WeightRepository.DashboardSummary empty = repository.getDashboard(emptyUser,
+                (id, weight, epochDay) -> emptyPage.add(weight));
+        assertEquals(0, empty.getEntryCount());
+        assertEquals(-1, empty.getLatestWeight(), 1e-9);
+        assertTrue(emptyPage.isEmpty());
+
+        assertFalse(repository.getWeightRollups(userId, WeightSchema.ROLLUP_MONTH, 19000, 19119).isEmpty());
+    }
+
+    @Test
+    public void historyQueriesNameTheirColumns() throws Exception {
+        repository = JdbcWeightRepository.open(file, PasswordHasher.MIN_ITERATIONS);
+        // Android cursor consumers look columns up by name, so converted weights keep theirs
+        for (String sql : Arrays.asList(WeightSchema.SQL_WEIGHTS_PAGE, WeightSchema.SQL_WEIGHTS_BETWEEN)) {
+            try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                ResultSetMetaData columns = statement.getMetaData();
+                assertEquals(WeightSchema.KEY_ID, columns.getColumnLabel(1));
+                assertEquals(WeightSchema.KEY_WEIGHT, columns.getColumnLabel(2));
+                assertEquals(WeightSchema.KEY_EPOCH_DAY, columns.getColumnLabel(3));
+            }
+        }
+    }
+
+    @Test
+    public void versionOneDatabaseUpgradesThroughSharedMigrations() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + " username TEXT UNIQUE NOT NULL, password TEXT NOT NULL)");
+            statement.execute("CREATE TABLE weights (id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + " user_id INTEGER NOT NULL, weight REAL NOT NULL, date TEXT NOT NULL)");
+            statement.execute("CREATE TABLE goals (id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + " user_id INTEGER UNIQUE NOT NULL, goal_weight REAL NOT NULL)");
+            statement.execute("CREATE INDEX idx_user_weights ON weights(user_id)");
+            statement.execute("INSERT INTO users (username, password) VALUES ('alice', 'password1')");
+            statement.execute("INSERT INTO weights (user_id, weight, date) VALUES (1, 180.25, '2024-01-01')");
+            statement.execute("INSERT INTO weights (user_id, weight, date) VALUES (1, 179.5, '2024-01-02')");
+            statement.execute("INSERT INTO goals (user_id, goal_weight) VALUES (1, 170)");
+            statement.execute("PRAGMA user_version=1");
+        }
+
+        repository = JdbcWeightRepository.open(file, PasswordHasher.MIN_ITERATIONS);
+        repository.close();
+        repository = null;
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("PRAGMA user_version")) {
+            assertEquals(WeightSchema.VERSION, rs.getInt(1));
+        }
+
+        repository = JdbcWeightRepository.open(file, PasswordHasher.MIN_ITERATIONS);
+        List<Long> days = new ArrayList<>();
+        assertEquals(2, repository.forEachWeightBetween(1, 0, 100000, (id, weight, epochDay) -> days.add(epochDay)));
+        assertEquals(Arrays.asList(19723L, 19724L), days);
+        assertEquals(179.5, repository.getLatestWeight(1), 1e-9);
+        assertEquals(180.3, repository.getUserStats(1).getMaxWeight(), 1e-9); // Rounded to tenths once
+        assertEquals(170, repository.getGoalWeight(1), 1e-9);
+    }
+
+    private void insertUser(String username, String hash, String salt, int iterations) throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO users (username, password, salt, iterations) VALUES (?, ?, ?, ?)")) {
+            statement.setString(1, username);
+            statement.setString(2, hash);
+            statement.setString(3, salt);
+            statement.setInt(4, iterations);
+            statement.executeUpdate();
+        }
+    }
+
+    private int storedIterations(String username) throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT iterations FROM users WHERE username = ?")) {
+            statement.setString(1, username);
+            try (ResultSet rs = statement.executeQuery()) {
+                assertTrue(rs.next());
+                return rs.getInt(1);
+            }
+        }
+    }
+}
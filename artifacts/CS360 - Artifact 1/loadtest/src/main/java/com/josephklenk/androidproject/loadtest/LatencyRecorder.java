@@ -0,0 +1,60 @@
+package com.josephklenk.androidproject.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Collects per-call latencies for one operation and summarises them with
+ * nearest-rank percentiles
+ */
+final class LatencyRecorder {
+    private final String name;
+    private final long[] nanos;
+    private int count;
+
+    LatencyRecorder(String name, int capacity) {
+        this.name = name;
+        this.nanos = new long[capacity];
+    }
+
+    String getName() {
+        return name;
+    }
+
+    void record(long elapsedNanos) {
+        nanos[count++] = elapsedNanos;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * @param percentile 0 to 100
+     * @return Latency in microseconds at that percentile, or 0 with no samples
+     */
+    double percentileMicros(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return sorted[Math.max(0, rank - 1)] / 1000.0;
+    }
+
+    double meanMicros() {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += nanos[i];
+        }
+        return count == 0 ? 0 : total / 1000.0 / count;
+    }
+
+    double maxMicros() {
+        long max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, nanos[i]);
+        }
+        return max / 1000.0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,245 @@
+package com.josephklenk.androidproject.loadtest;
+
+import com.josephklenk.androidproject.core.PasswordHasher;
+import com.josephklenk.androidproject.core.WeightRepository;
+import com.josephklenk.androidproject.core.Weights;
+import com.josephklenk.androidproject.jdbc.JdbcWeightRepository;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Load-test harness: seeds a fresh database with SyntheticData, then times
+ * login, dashboard load, single inserts and history paging for randomly
+ * chosen users. Writes p50/p99 latencies as JSON so runs can be diffed.
+ *
+ * Options (all optional):
+ *   --users N        synthetic users (default 200)
+ *   --years M        years of history per user (default 3)
+ *   --seed S         generator and sampling seed (default 42)
+ *   --samples K      timed calls per operation (default 1000)
+ *   --iterations I   PBKDF2 work factor for seeded users (default PasswordHasher.MIN_ITERATIONS)
+ *   --db FILE        database file to seed; must not exist (default a temp file, deleted after)
+ *   --out FILE       JSON report path (default stdout only)
+ */
+public final class LoadTest {
+    // Last day of generated history; fixed so runs are reproducible
+    private static final long LAST_EPOCH_DAY = 20089; // 2025-01-01
+
+    private static final int WARMUP_DIVISOR = 10; // Untimed calls per operation, as a fraction of samples
+
+    private static final WeightRepository.WeightVisitor IGNORE = (id, weight, epochDay) -> { };
+
+    private final SyntheticData data;
+    private final JdbcWeightRepository repository;
+    private final long seed;
+    private final int samples;
+
+    // Per user index: database ID and the id range of their seeded history
+    private final long[] userIds;
+    private final long[] oldestIds;
+    private final long[] newestIds;
+    private final long[] nextEpochDays;
+
+    private LoadTest(SyntheticData data, JdbcWeightRepository repository, long seed, int samples) {
+        this.data = data;
+        this.repository = repository;
+        this.seed = seed;
+        this.samples = samples;
+        int users = data.getUserCount();
+        this.userIds = new long[users];
+        this.oldestIds = new long[users];
+        this.newestIds = new long[users];
+        this.nextEpochDays = new long[users];
+    }
+
+    public static void main(String[] args) throws IOException, SQLException {
+        int users = 200;
+        int years = 3;
+        long seed = 42;
+        int samples = 1000;
+        int iterations = PasswordHasher.MIN_ITERATIONS;
+        File db = null;
+        File out = null;
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--users": users = Integer.parseInt(value); break;
+                case "--years": years = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--samples": samples = Integer.parseInt(value); break;
+                case "--iterations": iterations = Integer.parseInt(value); break;
+                case "--db": db = new File(value); break;
+                case "--out": out = new File(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        boolean temporary = db == null;
+        if (temporary) {
+            db = File.createTempFile("loadtest", ".db");
+            db.delete();
+        } else if (db.exists()) {
+            throw new IllegalArgumentException(db + " already exists");
+        }
+
+        String report;
+        try (JdbcWeightRepository repository = JdbcWeightRepository.open(db, iterations)) {
+            LoadTest test = new LoadTest(new SyntheticData(seed, users, years, LAST_EPOCH_DAY), repository, seed, samples);
+            report = test.run(years, iterations);
+        } finally {
+            if (temporary) {
+                deleteDatabase(db);
+            }
+        }
+
+        System.out.println(report);
+        if (out != null) {
+            try (Writer writer = Files.newBufferedWriter(out.toPath(), StandardCharsets.UTF_8)) {
+                writer.write(report);
+                writer.write('\n');
+            }
+        }
+    }
+
+    private String run(int years, int iterations) {
+        PrintStream log = System.err;
+        long started = System.nanoTime();
+        long entries = seed(log);
+        long seedMillis = (System.nanoTime() - started) / 1_000_000;
+        log.println("Seeded " + data.getUserCount() + " users, " + entries + " entries in " + seedMillis + " ms");
+
+        List<LatencyRecorder> results = new ArrayList<>();
+        results.add(measure("login", user -> {
+            if (!repository.authenticate(data.username(user), data.password(user)).isAuthenticated()) {
+                throw new IllegalStateException("Login failed for " + data.username(user));
+            }
+        }));
+        results.add(measure("dashboard", user -> repository.getDashboard(userIds[user], IGNORE)));
+        results.add(measure("insert", user ->
+                repository.addWeight(userIds[user], 180.5, Weights.UNIT_POUNDS, nextEpochDays[user]++)));
+        Random pageRandom = new Random(seed);
+        results.add(measure("historyPage", user -> {
+            // Any id in the seeded range is a valid keyset token for that user
+            long span = newestIds[user] - oldestIds[user] + 1;
+            long token = oldestIds[user] + 1 + (long) (pageRandom.nextDouble() * span);
+            repository.forEachWeightInPage(userIds[user], token, WeightRepository.DEFAULT_PAGE_SIZE, IGNORE);
+        }));
+
+        for (LatencyRecorder result : results) {
+            log.println(String.format(Locale.ROOT, "%-12s p50 %10.1f us   p99 %10.1f us",
+                    result.getName(), result.percentileMicros(50), result.percentileMicros(99)));
+        }
+        return toJson(years, iterations, entries, seedMillis, results);
+    }
+
+    /**
+     * Adds every synthetic user with their history and goal, one
+     * transaction per user's history
+     * @return Total entries inserted
+     */
+    private long seed(PrintStream log) {
+        long total = 0;
+        for (int user = 0; user < data.getUserCount(); user++) {
+            long userId = repository.addUser(data.username(user), data.password(user));
+            if (userId == -1) {
+                throw new IllegalStateException("Could not add " + data.username(user));
+            }
+            userIds[user] = userId;
+
+            List<WeightRepository.WeightEntry> entries = data.entries(user);
+            int inserted = repository.addWeights(userId, entries).getInsertedCount();
+            total += inserted;
+            long[] newest = {0};
+            repository.forEachWeightInPage(userId, WeightRepository.FIRST_PAGE, 1, (id, weight, day) -> newest[0] = id);
+            newestIds[user] = newest[0];
+            oldestIds[user] = newest[0] - inserted + 1; // One batch per user, so ids are contiguous
+            nextEpochDays[user] = LAST_EPOCH_DAY + 1;
+
+            double goal = data.goalWeight(user);
+            if (goal > 0) {
+                repository.setGoalWeight(userId, goal);
+            }
+            if ((user + 1) % 1000 == 0) {
+                log.println("Seeded " + (user + 1) + " users");
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Times one operation against randomly chosen users after an untimed warmup
+     */
+    private LatencyRecorder measure(String name, UserOperation operation) {
+        Random random = new Random(seed ^ name.hashCode());
+        int users = data.getUserCount();
+        for (int i = 0; i < samples / WARMUP_DIVISOR; i++) {
+            operation.run(random.nextInt(users));
+        }
+
+        LatencyRecorder recorder = new LatencyRecorder(name, samples);
+        for (int i = 0; i < samples; i++) {
+            int user = random.nextInt(users);
+            long start = System.nanoTime();
+            operation.run(user);
+            recorder.record(System.nanoTime() - start);
+        }
+        return recorder;
+    }
+
+    private String toJson(int years, int iterations, long entries, long seedMillis, List<LatencyRecorder> results) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"config\": {");
+        json.append("\"users\": ").append(data.getUserCount());
+        json.append(", \"years\": ").append(years);
+        json.append(", \"seed\": ").append(seed);
+        json.append(", \"samples\": ").append(samples);
+        json.append(", \"iterations\": ").append(iterations);
+        json.append("},\n");
+        json.append("  \"environment\": {");
+        json.append("\"java\": \"").append(System.getProperty("java.version")).append('"');
+        json.append(", \"os\": \"").append(System.getProperty("os.name")).append(' ')
+                .append(System.getProperty("os.arch")).append('"');
+        json.append(", \"processors\": ").append(Runtime.getRuntime().availableProcessors());
+        json.append("},\n");
+        json.append("  \"seeding\": {\"entries\": ").append(entries)
+                .append(", \"millis\": ").append(seedMillis).append("},\n");
+        json.append("  \"operations\": {\n");
+        for (int i = 0; i < results.size(); i++) {
+            LatencyRecorder result = results.get(i);
+            json.append(String.format(Locale.ROOT,
+                    "    \"%s\": {\"samples\": %d, \"p50_us\": %.1f, \"p99_us\": %.1f, \"mean_us\": %.1f, \"max_us\": %.1f}",
+                    result.getName(), result.getCount(), result.percentileMicros(50), result.percentileMicros(99),
+                    result.meanMicros(), result.maxMicros()));
+            json.append(i + 1 < results.size() ? ",\n" : "\n");
+        }
+        json.append("  }\n");
+        json.append("}");
+        return json.toString();
+    }
+
+    private static void deleteDatabase(File db) {
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            new File(db.getPath() + suffix).delete();
+        }
+    }
+
+    /**
+     * One timed call on behalf of a user, by index
+     */
+    private interface UserOperation {
+        void run(int user);
+    }
+}
\ No newline at end of file
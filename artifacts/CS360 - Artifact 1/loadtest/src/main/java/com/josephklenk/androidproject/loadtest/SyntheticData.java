@@ -0,0 +1,158 @@
+package com.josephklenk.androidproject.loadtest;
+
+import com.josephklenk.androidproject.core.WeightRepository;
+import com.josephklenk.androidproject.core.Weights;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic weight histories. Each user's data depends only
+ * on the seed and the user's index, so any subset of users can be
+ * regenerated, and a run is reproducible across machines.
+ * A history drifts through trend phases with day-to-day noise and a
+ * weekend bump. It has skipped days, occasional multi-week gaps and rare
+ * outliers, including the classic kilograms-typed-as-pounds entry.
+ */
+public final class SyntheticData {
+    // Mixes the run seed with a user index; odd constant from the golden ratio
+    private static final long SEED_MIX = 0x9E3779B97F4A7C15L;
+
+    // Body model, in pounds and days
+    private static final double MIN_WEIGHT = 90;
+    private static final double MAX_WEIGHT = 400;
+    private static final double DAILY_NOISE = 1.2;
+    private static final double WEEKEND_BUMP = 0.8;
+    private static final double TREND_SPREAD = 0.04; // Std dev of a phase's daily drift
+    private static final int MIN_PHASE_DAYS = 60;
+    private static final int MAX_PHASE_DAYS = 365;
+
+    // Gaps and outliers
+    private static final double MIN_SKIP_RATE = 0.05;
+    private static final double MAX_SKIP_RATE = 0.5;
+    private static final double LONG_GAP_RATE = 1.0 / 200;
+    private static final int MIN_LONG_GAP_DAYS = 7;
+    private static final int MAX_LONG_GAP_DAYS = 60;
+    private static final double OUTLIER_RATE = 0.005;
+    private static final double GOAL_RATE = 0.7;
+
+    private static final double POUNDS_PER_KILOGRAM = 2.20462;
+
+    private final long seed;
+    private final int userCount;
+    private final int days;
+    private final long lastEpochDay;
+
+    /**
+     * @param seed Run seed; the same seed always produces the same data
+     * @param userCount Number of users
+     * @param years Years of history ending on lastEpochDay
+     * @param lastEpochDay Most recent day any user can have an entry
+     */
+    public SyntheticData(long seed, int userCount, int years, long lastEpochDay) {
+        if (userCount <= 0 || years <= 0) {
+            throw new IllegalArgumentException("Need at least one user and one year");
+        }
+        this.seed = seed;
+        this.userCount = userCount;
+        this.days = years * 365;
+        this.lastEpochDay = lastEpochDay;
+    }
+
+    public int getUserCount() {
+        return userCount;
+    }
+
+    /**
+     * @param user User index, 0 to getUserCount() - 1
+     * @return Unique username
+     */
+    public String username(int user) {
+        return String.format("user%07d", user);
+    }
+
+    /**
+     * @param user User index
+     * @return The user's password, stable for a given seed
+     */
+    public String password(int user) {
+        return "pw-" + Long.toHexString(random(user, 0).nextLong());
+    }
+
+    /**
+     * @param user User index
+     * @return Goal weight in pounds, or -1 if this user has not set one
+     */
+    public double goalWeight(int user) {
+        Random random = random(user, 1);
+        if (random.nextDouble() >= GOAL_RATE) {
+            return -1;
+        }
+        return roundToTenths(startWeight(user) - 10 - random.nextDouble() * 30);
+    }
+
+    /**
+     * Generates one user's history, oldest first
+     * @param user User index
+     * @return Entries in pounds, in the order they would have been logged
+     */
+    public List<WeightRepository.WeightEntry> entries(int user) {
+        Random random = random(user, 2);
+        double skipRate = MIN_SKIP_RATE + random.nextDouble() * (MAX_SKIP_RATE - MIN_SKIP_RATE);
+
+        // Users join at different times during the first fifth of the window
+        long day = lastEpochDay - days + 1 + random.nextInt(days / 5 + 1);
+        double weight = startWeight(user);
+        double trend = 0;
+        long phaseEnd = day;
+
+        List<WeightRepository.WeightEntry> entries = new ArrayList<>();
+        for (; day <= lastEpochDay; day++) {
+            if (day >= phaseEnd) {
+                trend = random.nextGaussian() * TREND_SPREAD;
+                phaseEnd = day + MIN_PHASE_DAYS + random.nextInt(MAX_PHASE_DAYS - MIN_PHASE_DAYS + 1);
+            }
+            weight += trend;
+            if (weight < MIN_WEIGHT || weight > MAX_WEIGHT) {
+                trend = -trend;
+                weight = Math.max(MIN_WEIGHT, Math.min(MAX_WEIGHT, weight));
+            }
+
+            if (random.nextDouble() < LONG_GAP_RATE) {
+                day += MIN_LONG_GAP_DAYS + random.nextInt(MAX_LONG_GAP_DAYS - MIN_LONG_GAP_DAYS + 1);
+                continue;
+            }
+            if (random.nextDouble() < skipRate) {
+                continue;
+            }
+
+            // 1970-01-05 was a Monday, so days 5 and 6 of each week are the weekend
+            double logged = weight + random.nextGaussian() * DAILY_NOISE
+                    + (Math.floorMod(day - 4, 7) >= 5 ? WEEKEND_BUMP : 0);
+            if (random.nextDouble() < OUTLIER_RATE) {
+                logged = random.nextBoolean()
+                        ? logged / POUNDS_PER_KILOGRAM
+                        : logged + (random.nextBoolean() ? 1 : -1) * (10 + random.nextDouble() * 20);
+            }
+            entries.add(new WeightRepository.WeightEntry(roundToTenths(logged), day));
+        }
+        return entries;
+    }
+
+    private double startWeight(int user) {
+        double start = 180 + random(user, 3).nextGaussian() * 35;
+        return Math.max(MIN_WEIGHT + 20, Math.min(MAX_WEIGHT - 20, start));
+    }
+
+    /**
+     * Independent stream per user and purpose, so adding a field to one
+     * stream does not shift the values drawn from another
+     */
+    private Random random(int user, int stream) {
+        return new Random((seed * SEED_MIX + user) * SEED_MIX + stream);
+    }
+
+    private static double roundToTenths(double pounds) {
+        return (double) Math.round(pounds * Weights.SCALE) / Weights.SCALE;
+    }
+}
\ No newline at end of file
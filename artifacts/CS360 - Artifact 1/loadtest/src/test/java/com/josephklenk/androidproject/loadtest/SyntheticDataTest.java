@@ -0,0 +1,59 @@
+package com.josephklenk.androidproject.loadtest;
+
+import com.josephklenk.androidproject.core.Validation;
+import com.josephklenk.androidproject.core.WeightRepository;
+import com.josephklenk.androidproject.core.Weights;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the synthetic history generator.
+ */
+public class SyntheticDataTest {
+    private static final long LAST_DAY = 20089;
+
+    @Test
+    public void sameSeedGivesSameHistory() {
+        SyntheticData first = new SyntheticData(7, 10, 2, LAST_DAY);
+        SyntheticData second = new SyntheticData(7, 10, 2, LAST_DAY);
+
+        List<WeightRepository.WeightEntry> a = first.entries(3);
+        List<WeightRepository.WeightEntry> b = second.entries(3);
+        assertEquals(a.size(), b.size());
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(a.get(i).getWeight(), b.get(i).getWeight(), 0);
+            assertEquals(a.get(i).getEpochDay(), b.get(i).getEpochDay());
+        }
+        assertEquals(first.password(3), second.password(3));
+        assertEquals(first.goalWeight(3), second.goalWeight(3), 0);
+
+        assertNotEquals(first.password(3), new SyntheticData(8, 10, 2, LAST_DAY).password(3));
+    }
+
+    @Test
+    public void historiesHaveGapsAndStayStorable() {
+        SyntheticData data = new SyntheticData(42, 50, 3, LAST_DAY);
+        boolean sawGap = false;
+        boolean sawJump = false;
+        for (int user = 0; user < data.getUserCount(); user++) {
+            List<WeightRepository.WeightEntry> entries = data.entries(user);
+            assertFalse(entries.isEmpty());
+            for (int i = 0; i < entries.size(); i++) {
+                WeightRepository.WeightEntry entry = entries.get(i);
+                assertTrue(Weights.isValidStored(Weights.toStored(entry.getWeight(), Weights.UNIT_POUNDS)));
+                assertTrue(Validation.isValidEpochDay(entry.getEpochDay()));
+                assertTrue(entry.getEpochDay() <= LAST_DAY);
+                if (i > 0) {
+                    WeightRepository.WeightEntry previous = entries.get(i - 1);
+                    assertTrue(entry.getEpochDay() > previous.getEpochDay());
+                    sawGap |= entry.getEpochDay() - previous.getEpochDay() >= 7;
+                    sawJump |= Math.abs(entry.getWeight() - previous.getWeight()) >= 15;
+                }
+            }
+        }
+        assertTrue("expected multi-day gaps", sawGap);
+        assertTrue("expected outliers", sawJump);
+    }
+}